@@ -0,0 +1,75 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.scheduling.Priority;
+
+import gpsUtil.location.Attraction;
+
+/**
+ * Attractions listed by the GPS service, refreshed in the background so that the location
+ * event handlers read them without calling the GPS service on the bus consumer thread.
+ *
+ * The list is empty until the first refresh succeeds; a failed refresh keeps the previous
+ * list and is retried at the next interval.
+ */
+public class AttractionCatalog {
+	private Logger logger = LoggerFactory.getLogger(AttractionCatalog.class);
+	private final GpsGateway gpsGateway;
+	private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "attraction-catalog");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile List<Attraction> attractions = List.of();
+
+	/**
+	 * @param gpsGateway The GPS service listing the attractions
+	 */
+	public AttractionCatalog(GpsGateway gpsGateway) {
+		this.gpsGateway = gpsGateway;
+	}
+
+	/**
+	 * Loads the attractions now, then every interval, on the refresh thread.
+	 *
+	 * @param refreshInterval Delay between two refreshes
+	 */
+	public void start(Duration refreshInterval) {
+		refresher.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Reloads the attractions on the calling thread.
+	 *
+	 * @return Whether the attractions were reloaded
+	 */
+	public boolean refresh() {
+		try {
+			attractions = List.copyOf(Priority.BULK.call(gpsGateway::getAttractions));
+			return true;
+		} catch (RuntimeException e) {
+			logger.warn("Could not refresh the attractions, keeping the {} known ones", attractions.size(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * @return The attractions of the last successful refresh, empty before the first one
+	 */
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+	public void shutdown() {
+		refresher.shutdownNow();
+	}
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Concurrent cache holding at most a given number of entries; the oldest entries are
+ * evicted first. Reads never lock, which keeps hot lookups in the microsecond range.
+ */
+public class BoundedCache<K, V> {
+	private final int maxSize;
+	private final Map<K, V> entries = new ConcurrentHashMap<>();
+	private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * @param maxSize Maximum number of entries
+	 */
+	public BoundedCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public V get(K key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Gets the value of a key, computing and caching it when missing.
+	 *
+	 * @param key The key
+	 * @param loader Computes the value of a missing key
+	 * @return The cached or computed value
+	 */
+	public V computeIfAbsent(K key, Function<K, V> loader) {
+		V value = entries.get(key);
+		if (value != null) {
+			return value;
+		}
+		value = loader.apply(key);
+		put(key, value);
+		return value;
+	}
+
+	public void put(K key, V value) {
+		if (entries.put(key, value) == null) {
+			insertionOrder.add(key);
+			if (size.incrementAndGet() > maxSize) {
+				evictOldest();
+			}
+		}
+	}
+
+	public void remove(K key) {
+		if (entries.remove(key) != null) {
+			// the key stays in the insertion queue and is skipped when its turn comes
+			size.decrementAndGet();
+		}
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	private void evictOldest() {
+		while (size.get() > maxSize) {
+			K oldest = insertionOrder.poll();
+			if (oldest == null) {
+				return;
+			}
+			if (entries.remove(oldest) != null) {
+				size.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.event.LocationEventHandler;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.geo.BoundingBox;
+import com.openclassrooms.tourguide.geo.Geohash;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Cache of the nearby attractions answer, so that a user who has not moved is answered
+ * without ranking every attraction nor calling RewardCentral again.
+ *
+ * Two levels are kept:
+ * - per geohash cell, every attraction that can be among the nearest to a location of the
+ *   cell: those within the distance of the n-th nearest to the cell center plus the cell
+ *   diagonal. They are re-ranked by exact distance for each location of the cell, which gives
+ *   the same answer as ranking every attraction;
+ * - per user, the nearest attractions for the cell of the user and the reward points of
+ *   every attraction already looked up for the user.
+ *
+ * Attractions are identified by name, since their ids are not stable across calls to gpsUtil.
+ */
+public class NearbyAttractionCache implements LocationEventHandler {
+	public static final int DEFAULT_PRECISION = 5;
+
+	private final GpsGateway gpsGateway;
+	private final RewardsService rewardsService;
+	private final int precision;
+	private final int attractionsReturned;
+	private final BoundedCache<String, List<Attraction>> cellCandidates;
+	private final BoundedCache<UUID, UserEntry> userEntries;
+
+	private record UserEntry(String cell, List<Attraction> nearest, Map<String, Integer> rewardPoints) {
+	}
+
+	/**
+	 * @param gpsGateway The GPS service listing the attractions
+	 * @param rewardsService The service computing distances and reward points
+	 * @param precision Geohash length of a cell
+	 * @param attractionsReturned Number of attractions returned per request
+	 * @param maxCells Maximum number of cells cached
+	 * @param maxUsers Maximum number of users cached
+	 */
+	public NearbyAttractionCache(GpsGateway gpsGateway, RewardsService rewardsService, int precision,
+			int attractionsReturned, int maxCells, int maxUsers) {
+		this.gpsGateway = gpsGateway;
+		this.rewardsService = rewardsService;
+		this.precision = precision;
+		this.attractionsReturned = attractionsReturned;
+		this.cellCandidates = new BoundedCache<>(maxCells);
+		this.userEntries = new BoundedCache<>(maxUsers);
+	}
+
+	/**
+	 * Gets the attractions nearest to a location, with the reward points of the user.
+	 *
+	 * @param visitedLocation The location of the user
+	 * @param user The user
+	 * @return The nearest attractions, closest first
+	 */
+	public List<NearbyAttractionDTO> getNearByAttractions(VisitedLocation visitedLocation, User user) {
+		Location location = visitedLocation.location;
+		String cell = Geohash.encode(location.latitude, location.longitude, precision);
+		UserEntry entry = userEntries.get(user.getUserId());
+		if (entry == null || !entry.cell().equals(cell)) {
+			Map<String, Integer> rewardPoints = entry == null ? new ConcurrentHashMap<>() : entry.rewardPoints();
+			entry = new UserEntry(cell, rankCandidates(cell), rewardPoints);
+			userEntries.put(user.getUserId(), entry);
+		}
+
+		List<NearbyAttractionDTO> nearbyAttractions = new ArrayList<>(attractionsReturned);
+		for (Attraction attraction : rerank(entry.nearest(), location, attractionsReturned)) {
+			int points = entry.rewardPoints().computeIfAbsent(attraction.attractionName,
+					name -> rewardsService.getRewardPoints(attraction, user));
+			nearbyAttractions.add(new NearbyAttractionDTO(attraction, visitedLocation,
+					rewardsService.getDistance(attraction, location), points));
+		}
+		return nearbyAttractions;
+	}
+
+	/**
+	 * Drops the nearest attractions of the users whose new location left their cell; their
+	 * reward points are kept, since they do not depend on the location.
+	 */
+	@Override
+	public void onEvents(List<LocationEvent> events) {
+		for (LocationEvent event : events) {
+			UUID userId = event.user().getUserId();
+			UserEntry entry = userEntries.get(userId);
+			Location location = event.visitedLocation().location;
+			if (entry != null && !entry.cell().equals(Geohash.encode(location.latitude, location.longitude, precision))) {
+				userEntries.put(userId, new UserEntry("", List.of(), entry.rewardPoints()));
+			}
+		}
+	}
+
+	public int cachedCells() {
+		return cellCandidates.size();
+	}
+
+	public int cachedUsers() {
+		return userEntries.size();
+	}
+
+	private List<Attraction> rankCandidates(String cell) {
+		return cellCandidates.computeIfAbsent(cell, this::candidatesOf);
+	}
+
+	/**
+	 * A location of the cell is at most half the diagonal away from the center, so an attraction
+	 * farther from the center than the n-th nearest plus the diagonal cannot be among its n nearest.
+	 */
+	private List<Attraction> candidatesOf(String cell) {
+		BoundingBox bounds = Geohash.bounds(cell);
+		Location center = new Location((bounds.minLatitude() + bounds.maxLatitude()) / 2,
+				(bounds.minLongitude() + bounds.maxLongitude()) / 2);
+		double halfDiagonal = Math.max(
+				rewardsService.getDistance(center, new Location(bounds.minLatitude(), bounds.minLongitude())),
+				rewardsService.getDistance(center, new Location(bounds.maxLatitude(), bounds.minLongitude())));
+		List<Attraction> byDistance = rerank(gpsGateway.getAttractions(), center, Integer.MAX_VALUE);
+		if (byDistance.size() <= attractionsReturned) {
+			return byDistance;
+		}
+		double reach = rewardsService.getDistance(byDistance.get(attractionsReturned - 1), center) + 2 * halfDiagonal;
+		return byDistance.stream()
+				.takeWhile(attraction -> rewardsService.getDistance(attraction, center) <= reach)
+				.toList();
+	}
+
+	private List<Attraction> rerank(List<Attraction> attractions, Location location, int limit) {
+		return attractions.stream()
+				.sorted(Comparator.comparingDouble(attraction -> rewardsService.getDistance(attraction, location)))
+				.limit(limit)
+				.toList();
+	}
+}
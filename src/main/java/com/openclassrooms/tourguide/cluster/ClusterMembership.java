@@ -0,0 +1,191 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Knows which TourGuide nodes form the cluster and which of them owns a given user.
+ *
+ * Users are partitioned by user name on a {@link ConsistentHashRing}. Members are either
+ * declared statically or read from a local file that is polled for changes, which makes it
+ * possible to run several JVMs on one machine. When the member list changes the ring is
+ * rebuilt and the registered rebalance listeners are notified.
+ *
+ * A membership without any node is standalone: the local node owns every user.
+ */
+public class ClusterMembership {
+	private Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+
+	private final String selfId;
+	private final Path membersFile;
+	private final List<Runnable> rebalanceListeners = new CopyOnWriteArrayList<>();
+	private volatile ConsistentHashRing ring;
+	private FileTime membersFileLastModified;
+	private ScheduledExecutorService refresher;
+
+	/**
+	 * Constructs a membership with a static list of nodes.
+	 *
+	 * @param selfId Identifier of the local node
+	 * @param nodes The cluster nodes, empty for a standalone node
+	 */
+	public ClusterMembership(String selfId, List<ClusterNode> nodes) {
+		this.selfId = selfId;
+		this.membersFile = null;
+		updateMembers(nodes);
+	}
+
+	/**
+	 * Constructs a membership read from a file of {@code id=url} lines, polled for changes.
+	 * Until the file exists, the local node is alone and owns every user.
+	 *
+	 * @param selfId Identifier of the local node
+	 * @param membersFile The file listing the cluster nodes
+	 * @param refreshInterval How often the file is checked for changes
+	 */
+	public ClusterMembership(String selfId, Path membersFile, Duration refreshInterval) {
+		this.selfId = selfId;
+		this.membersFile = membersFile;
+		refresh();
+		refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cluster-membership-refresher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshInterval.toMillis(),
+				refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return A membership where the local node owns every user
+	 */
+	public static ClusterMembership standalone() {
+		return new ClusterMembership(null, List.of());
+	}
+
+	/**
+	 * @return true if no cluster is configured
+	 */
+	public boolean isStandalone() {
+		return ring == null;
+	}
+
+	/**
+	 * Checks whether the local node owns a user.
+	 *
+	 * @param userName The user name
+	 * @return true if the user is tracked and served by this node
+	 */
+	public boolean isLocal(String userName) {
+		ConsistentHashRing currentRing = ring;
+		return currentRing == null || currentRing.ownerOf(userName).id().equals(selfId);
+	}
+
+	/**
+	 * Finds the node owning a user.
+	 *
+	 * @param userName The user name
+	 * @return The owning node, or null when standalone
+	 */
+	public ClusterNode ownerOf(String userName) {
+		ConsistentHashRing currentRing = ring;
+		return currentRing == null ? null : currentRing.ownerOf(userName);
+	}
+
+	/**
+	 * @return The current cluster nodes, empty when standalone
+	 */
+	public List<ClusterNode> getNodes() {
+		ConsistentHashRing currentRing = ring;
+		return currentRing == null ? List.of() : currentRing.getNodes();
+	}
+
+	/**
+	 * Replaces the cluster nodes and rebalances the user partitions if they changed.
+	 *
+	 * @param nodes The new cluster nodes, empty for a standalone node
+	 */
+	public synchronized void updateMembers(List<ClusterNode> nodes) {
+		if (nodes.equals(getNodes())) {
+			return;
+		}
+		if (!nodes.isEmpty() && nodes.stream().noneMatch(node -> node.id().equals(selfId))) {
+			logger.warn("Local node " + selfId + " is not part of the cluster, it will own no user");
+		}
+		ring = nodes.isEmpty() ? null : new ConsistentHashRing(nodes);
+		logger.info("Cluster membership changed, rebalancing users across " + Math.max(1, nodes.size()) + " node(s)");
+		rebalanceListeners.forEach(Runnable::run);
+	}
+
+	/**
+	 * Registers a callback run after the user partitions changed.
+	 *
+	 * @param listener The callback
+	 */
+	public void addRebalanceListener(Runnable listener) {
+		rebalanceListeners.add(listener);
+	}
+
+	/**
+	 * Reloads the members file if it was modified since the last read.
+	 */
+	public synchronized void refresh() {
+		if (membersFile == null) {
+			return;
+		}
+		if (membersFileLastModified == null && !Files.exists(membersFile)) {
+			// not written yet, picked up by a later refresh
+			logger.info("Cluster members file " + membersFile + " not found, running alone until it is written");
+			return;
+		}
+		try {
+			FileTime lastModified = Files.getLastModifiedTime(membersFile);
+			if (lastModified.equals(membersFileLastModified)) {
+				return;
+			}
+			membersFileLastModified = lastModified;
+			updateMembers(Files.readAllLines(membersFile).stream()
+					.map(String::trim)
+					.filter(line -> !line.isEmpty() && !line.startsWith("#"))
+					.map(ClusterNode::parse)
+					.toList());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read cluster members file " + membersFile, e);
+		}
+	}
+
+	/**
+	 * Stops polling the members file.
+	 */
+	public void shutdown() {
+		if (refresher != null) {
+			refresher.shutdownNow();
+		}
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			logger.warn("Keeping previous cluster membership: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterMembership[self=" + Objects.toString(selfId, "standalone") + ", nodes=" + getNodes() + "]";
+	}
+}
@@ -0,0 +1,24 @@
+package com.openclassrooms.tourguide.cluster;
+
+/**
+ * A TourGuide instance taking part in the cluster.
+ *
+ * @param id Unique identifier of the node, used to place it on the hash ring
+ * @param url Base URL other nodes use to reach it (e.g. http://localhost:8081)
+ */
+public record ClusterNode(String id, String url) {
+
+	/**
+	 * Parses a node declared as {@code id=url}.
+	 *
+	 * @param declaration The node declaration
+	 * @return The parsed node
+	 */
+	public static ClusterNode parse(String declaration) {
+		int separator = declaration.indexOf('=');
+		if (separator <= 0) {
+			throw new IllegalArgumentException("Invalid cluster node declaration: " + declaration);
+		}
+		return new ClusterNode(declaration.substring(0, separator).trim(), declaration.substring(separator + 1).trim());
+	}
+}
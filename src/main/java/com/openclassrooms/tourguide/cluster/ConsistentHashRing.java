@@ -0,0 +1,83 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring mapping keys to cluster nodes.
+ *
+ * Each node is placed on the ring several times (virtual nodes) so that keys are spread
+ * evenly and only about 1/N of them move when a node joins or leaves.
+ */
+public class ConsistentHashRing {
+	private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+	private final NavigableMap<Long, ClusterNode> ring = new TreeMap<>();
+	private final List<ClusterNode> nodes;
+
+	/**
+	 * Builds a ring with the default number of virtual nodes per node.
+	 *
+	 * @param nodes The nodes of the cluster
+	 */
+	public ConsistentHashRing(Collection<ClusterNode> nodes) {
+		this(nodes, DEFAULT_VIRTUAL_NODES);
+	}
+
+	/**
+	 * Builds a ring.
+	 *
+	 * @param nodes The nodes of the cluster
+	 * @param virtualNodes Number of positions each node takes on the ring
+	 */
+	public ConsistentHashRing(Collection<ClusterNode> nodes, int virtualNodes) {
+		if (nodes.isEmpty()) {
+			throw new IllegalArgumentException("A hash ring needs at least one node");
+		}
+		this.nodes = List.copyOf(nodes);
+		for (ClusterNode node : this.nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.put(hash(node.id() + "#" + i), node);
+			}
+		}
+	}
+
+	/**
+	 * Finds the node owning a key: the first node clockwise from the key's hash.
+	 *
+	 * @param key The key to place, usually a user name
+	 * @return The owning node
+	 */
+	public ClusterNode ownerOf(String key) {
+		Map.Entry<Long, ClusterNode> entry = ring.ceilingEntry(hash(key));
+		return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+	}
+
+	/**
+	 * @return The nodes placed on the ring
+	 */
+	public List<ClusterNode> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * 64-bit FNV-1a hash followed by a murmur3 finalizer for a good bit spread.
+	 */
+	static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.tourguide.cluster;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Keeps user requests on the node owning the user.
+ *
+ * Requests carrying a {@code userName} owned by another node are either redirected to the
+ * owner (307, the client replays the request there) or rejected immediately with
+ * 421 Misdirected Request and the owner's URL in the {@code X-TourGuide-Owner} header.
+ */
+public class PartitionOwnershipInterceptor implements HandlerInterceptor {
+	public static final String OWNER_HEADER = "X-TourGuide-Owner";
+	// 421 Misdirected Request, not part of Spring's HttpStatus enum
+	private static final int MISDIRECTED_REQUEST = 421;
+
+	private final ClusterMembership clusterMembership;
+	private final boolean redirectToOwner;
+
+	/**
+	 * @param clusterMembership The cluster membership
+	 * @param redirectToOwner true to redirect to the owning node, false to fail fast
+	 */
+	public PartitionOwnershipInterceptor(ClusterMembership clusterMembership, boolean redirectToOwner) {
+		this.clusterMembership = clusterMembership;
+		this.redirectToOwner = redirectToOwner;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		String userName = request.getParameter("userName");
+		if (userName == null || clusterMembership.isLocal(userName)) {
+			return true;
+		}
+
+		ClusterNode owner = clusterMembership.ownerOf(userName);
+		String ownerLocation = owner.url() + request.getRequestURI()
+				+ (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+		response.setHeader(OWNER_HEADER, owner.url());
+		if (redirectToOwner) {
+			response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+			response.setHeader(HttpHeaders.LOCATION, ownerLocation);
+		} else {
+			response.setStatus(MISDIRECTED_REQUEST);
+		}
+		return false;
+	}
+}
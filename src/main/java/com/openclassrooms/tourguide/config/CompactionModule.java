@@ -0,0 +1,32 @@
+package com.openclassrooms.tourguide.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.geo.TrajectorySimplifier;
+import com.openclassrooms.tourguide.service.HistoryCompactor;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/**
+ * Schedules the compaction of old location history, configured by the
+ * tourguide.compaction.* properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tourguide.compaction.enabled", havingValue = "true", matchIfMissing = true)
+public class CompactionModule {
+
+	@Bean(destroyMethod = "shutdown")
+	public HistoryCompactor getHistoryCompactor(TourGuideService tourGuideService,
+			@Value("${tourguide.compaction.simplifier:douglas-peucker:25}") String simplifier,
+			@Value("${tourguide.compaction.full-resolution-window:7d}") Duration fullResolutionWindow,
+			@Value("${tourguide.compaction.interval:1h}") Duration interval) {
+		HistoryCompactor historyCompactor = new HistoryCompactor(tourGuideService,
+				TrajectorySimplifier.parse(simplifier), fullResolutionWindow);
+		historyCompactor.start(interval);
+		return historyCompactor;
+	}
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.ingestion.UserIngestionService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/**
+ * Bulk user ingestion, configured by the tourguide.ingestion.* properties.
+ */
+@Configuration
+public class IngestionModule {
+
+	@Bean(destroyMethod = "shutdown")
+	public UserIngestionService getUserIngestionService(TourGuideService tourGuideService,
+			@Value("${tourguide.ingestion.threads:4}") int threads,
+			@Value("${tourguide.ingestion.batch-size:1000}") int batchSize) {
+		return new UserIngestionService(tourGuideService, threads, batchSize);
+	}
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.leaderboard.Leaderboard;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+/**
+ * Keeps the reward points leaderboard up to date with the rewards granted.
+ */
+@Configuration
+public class LeaderboardModule {
+
+	@Bean
+	public Leaderboard getLeaderboard(RewardsService rewardsService) {
+		Leaderboard leaderboard = new Leaderboard();
+		rewardsService.addRewardListener(leaderboard);
+		return leaderboard;
+	}
+}
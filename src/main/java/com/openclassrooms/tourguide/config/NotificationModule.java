@@ -0,0 +1,35 @@
+package com.openclassrooms.tourguide.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.notification.NotificationHub;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/**
+ * Connects the notification streams to the tracking pipeline: tracked locations feed the
+ * geofence notifications, granted rewards the reward notifications. Configured by the
+ * tourguide.notifications.* properties.
+ */
+@Configuration
+public class NotificationModule {
+
+	@Bean(destroyMethod = "shutdown")
+	public NotificationHub getNotificationHub(TourGuideService tourGuideService, RewardsService rewardsService,
+			AttractionCatalog attractionCatalog,
+			@Value("${tourguide.notifications.timeout:30m}") Duration timeout,
+			@Value("${tourguide.notifications.heartbeat:30s}") Duration heartbeat,
+			@Value("${tourguide.notifications.fan-out-threads:4}") int fanOutThreads,
+			@Value("${tourguide.notifications.write-timeout:5s}") Duration writeTimeout) {
+		NotificationHub notificationHub = new NotificationHub(rewardsService, attractionCatalog, timeout, heartbeat,
+				fanOutThreads, writeTimeout);
+		tourGuideService.addLocationEventHandler(notificationHub);
+		rewardsService.addRewardListener(notificationHub);
+		return notificationHub;
+	}
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.popularity.AttractionPopularity;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/**
+ * Counts the visits, rewards and nearby appearances of each attraction over sliding windows.
+ */
+@Configuration
+public class PopularityModule {
+
+	@Bean
+	public AttractionPopularity getAttractionPopularity(TourGuideService tourGuideService,
+			RewardsService rewardsService, AttractionCatalog attractionCatalog, MeterRegistry meterRegistry) {
+		AttractionPopularity attractionPopularity = new AttractionPopularity(attractionCatalog, rewardsService,
+				meterRegistry);
+		tourGuideService.addLocationEventHandler(attractionPopularity);
+		tourGuideService.setAttractionPopularity(attractionPopularity);
+		rewardsService.addRewardListener(attractionPopularity);
+		return attractionPopularity;
+	}
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.tourguide.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+import com.openclassrooms.tourguide.gateway.resilience.ResiliencePolicy;
+import com.openclassrooms.tourguide.gateway.resilience.ResilientGpsGateway;
+import com.openclassrooms.tourguide.gateway.resilience.ResilientPricingGateway;
+import com.openclassrooms.tourguide.gateway.resilience.ResilientRewardGateway;
+import com.openclassrooms.tourguide.gateway.resilience.UpstreamGuard;
+import com.openclassrooms.tourguide.scheduling.AdmissionPolicy;
+import com.openclassrooms.tourguide.scheduling.LoadSheddingInterceptor;
+
+/**
+ * Wraps the GPS, reward and pricing gateways, real or simulated, with timeouts, bulkheads,
+ * circuit breakers, hedging and admission control. The settings of each service are read from
+ * the tourguide.resilience.{gps|rewards|pricer}.* properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tourguide.resilience.enabled", havingValue = "true", matchIfMissing = true)
+public class ResilienceModule {
+
+	@Bean(destroyMethod = "shutdown")
+	@Primary
+	public ResilientGpsGateway getResilientGpsGateway(@Qualifier("getGpsGateway") GpsGateway gpsGateway,
+			Environment environment, MeterRegistry meterRegistry) {
+		return new ResilientGpsGateway(gpsGateway, guard("gps", environment, meterRegistry));
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	@Primary
+	public ResilientRewardGateway getResilientRewardGateway(@Qualifier("getRewardGateway") RewardGateway rewardGateway,
+			Environment environment, MeterRegistry meterRegistry) {
+		return new ResilientRewardGateway(rewardGateway, guard("rewards", environment, meterRegistry));
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	@Primary
+	public ResilientPricingGateway getResilientPricingGateway(
+			@Qualifier("getPricingGateway") PricingGateway pricingGateway, Environment environment,
+			MeterRegistry meterRegistry) {
+		return new ResilientPricingGateway(pricingGateway, guard("pricer", environment, meterRegistry));
+	}
+
+	@Bean
+	public LoadSheddingInterceptor getLoadSheddingInterceptor(ResilientGpsGateway gpsGateway,
+			ResilientRewardGateway rewardGateway, ResilientPricingGateway pricingGateway) {
+		return new LoadSheddingInterceptor(List.of(gpsGateway.getGuard().getAdmissionController(),
+				rewardGateway.getGuard().getAdmissionController(),
+				pricingGateway.getGuard().getAdmissionController()));
+	}
+
+	private UpstreamGuard guard(String upstream, Environment environment, MeterRegistry meterRegistry) {
+		String prefix = "tourguide.resilience." + upstream + ".";
+		ResiliencePolicy policy = new ResiliencePolicy(
+				environment.getProperty(prefix + "timeout", Duration.class, Duration.ofSeconds(5)),
+				environment.getProperty(prefix + "max-concurrent-calls", Integer.class, 100),
+				environment.getProperty(prefix + "max-queued-calls", Integer.class, 10000),
+				environment.getProperty(prefix + "hedge-delay", Duration.class, Duration.ZERO),
+				environment.getProperty(prefix + "failure-rate-threshold", Double.class, 0.5),
+				environment.getProperty(prefix + "sliding-window-size", Integer.class, 100),
+				environment.getProperty(prefix + "open-duration", Duration.class, Duration.ofSeconds(10)));
+		AdmissionPolicy admissionPolicy = new AdmissionPolicy(
+				environment.getProperty(prefix + "min-concurrency-limit", Integer.class, 1),
+				policy.maxConcurrentCalls(),
+				environment.getProperty(prefix + "reserved-interactive-share", Double.class, 0.25),
+				environment.getProperty(prefix + "interactive-queue-slo", Duration.class, Duration.ofMillis(200)),
+				environment.getProperty(prefix + "bulk-queue-timeout", Duration.class, Duration.ofSeconds(30)),
+				environment.getProperty(prefix + "latency-target", Duration.class, policy.timeout().dividedBy(2)));
+		return new UpstreamGuard(upstream, policy, admissionPolicy, meterRegistry);
+	}
+}
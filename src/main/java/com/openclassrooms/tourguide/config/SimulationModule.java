@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedPricingGateway;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedRewardGateway;
+
+/**
+ * Replaces gpsUtil, RewardCentral and TripPricer by local stand-ins when the "simulated"
+ * profile is active. Their latency and failure rate are set in application-simulated.properties.
+ */
+@Configuration
+@Profile(SimulationModule.PROFILE)
+public class SimulationModule {
+	public static final String PROFILE = "simulated";
+
+	@Bean
+	public GpsGateway getGpsGateway(
+			@Value("${tourguide.simulation.gps.latency}") String latency,
+			@Value("${tourguide.simulation.gps.failure-rate}") double failureRate) {
+		return new SimulatedGpsGateway(LatencyModel.parse(latency), new FailureInjector(failureRate));
+	}
+
+	@Bean
+	public RewardGateway getRewardGateway(
+			@Value("${tourguide.simulation.rewards.latency}") String latency,
+			@Value("${tourguide.simulation.rewards.failure-rate}") double failureRate) {
+		return new SimulatedRewardGateway(LatencyModel.parse(latency), new FailureInjector(failureRate));
+	}
+
+	@Bean
+	public PricingGateway getPricingGateway(
+			@Value("${tourguide.simulation.pricer.latency}") String latency,
+			@Value("${tourguide.simulation.pricer.failure-rate}") double failureRate) {
+		return new SimulatedPricingGateway(LatencyModel.parse(latency), new FailureInjector(failureRate));
+	}
+}
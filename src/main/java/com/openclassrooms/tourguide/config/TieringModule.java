@@ -0,0 +1,60 @@
+package com.openclassrooms.tourguide.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.openclassrooms.tourguide.service.ColdUserEvictor;
+import com.openclassrooms.tourguide.service.EvictionReport;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.storage.SegmentFileStore;
+
+/**
+ * Pages the histories and rewards of cold users out to memory-mapped files when the resident
+ * ones exceed a heap budget, configured by the tourguide.tiering.* properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tourguide.tiering.enabled", havingValue = "true", matchIfMissing = true)
+public class TieringModule {
+
+	@Bean(destroyMethod = "shutdown")
+	public ColdUserEvictor getColdUserEvictor(TourGuideService tourGuideService, MeterRegistry meterRegistry,
+			@Value("${tourguide.tiering.heap-budget:512MB}") DataSize heapBudget,
+			@Value("${tourguide.tiering.directory:${java.io.tmpdir}/tourguide}") String directory,
+			@Value("${tourguide.tiering.segment-size:64MB}") DataSize segmentSize,
+			@Value("${tourguide.tiering.interval:10s}") Duration interval) throws IOException {
+		Path parent = Files.createDirectories(Path.of(directory));
+		// a directory per instance, deleted on shutdown
+		SegmentFileStore store = new SegmentFileStore(Files.createTempDirectory(parent, "users-"),
+				(int) segmentSize.toBytes());
+		ColdUserEvictor coldUserEvictor = new ColdUserEvictor(tourGuideService, store, heapBudget.toBytes());
+		Gauge.builder("tourguide.users.resident.bytes", coldUserEvictor, evictor -> lastReport(evictor).residentBytes())
+				.description("Estimated heap held by the histories and rewards of resident users")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.users.cold.bytes", store, SegmentFileStore::getLiveBytes)
+				.description("Histories and rewards paged out to the cold store")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		Gauge.builder("tourguide.users.paged.out", coldUserEvictor, evictor -> lastReport(evictor).pagedOutUsers())
+				.description("Users whose history and rewards are in the cold store")
+				.register(meterRegistry);
+		coldUserEvictor.start(interval);
+		return coldUserEvictor;
+	}
+
+	private static EvictionReport lastReport(ColdUserEvictor coldUserEvictor) {
+		EvictionReport report = coldUserEvictor.getLastReport();
+		return report != null ? report : new EvictionReport(0, 0, 0, 0, 0, 0);
+	}
+}
@@ -1,28 +1,93 @@
 package com.openclassrooms.tourguide.config;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
 
 import gpsUtil.GpsUtil;
 import rewardCentral.RewardCentral;
+import tripPricer.TripPricer;
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.cluster.ClusterMembership;
+import com.openclassrooms.tourguide.cluster.ClusterNode;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.gateway.RewardCentralGateway;
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+import com.openclassrooms.tourguide.gateway.TripPricerGateway;
+import com.openclassrooms.tourguide.jfr.FlightRecorderEndpoint;
 import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.startup.TrainingRun;
 
 @Configuration
 public class TourGuideModule {
 	
 	@Bean
-	public GpsUtil getGpsUtil() {
-		return new GpsUtil();
+	@Profile("!" + SimulationModule.PROFILE)
+	public GpsGateway getGpsGateway() {
+		return new GpsUtilGateway(new GpsUtil());
 	}
 	
 	@Bean
-	public RewardsService getRewardsService() {
-		return new RewardsService(getGpsUtil(), getRewardCentral());
+	public RewardsService getRewardsService(GpsGateway gpsGateway, RewardGateway rewardGateway) {
+		return new RewardsService(gpsGateway, rewardGateway);
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public AttractionCatalog getAttractionCatalog(GpsGateway gpsGateway,
+			@Value("${tourguide.attractions.refresh-interval:10m}") Duration refreshInterval) {
+		AttractionCatalog attractionCatalog = new AttractionCatalog(gpsGateway);
+		attractionCatalog.start(refreshInterval);
+		return attractionCatalog;
 	}
 	
 	@Bean
-	public RewardCentral getRewardCentral() {
-		return new RewardCentral();
+	@Profile("!" + SimulationModule.PROFILE)
+	public RewardGateway getRewardGateway() {
+		return new RewardCentralGateway(new RewardCentral());
 	}
-	
+
+	@Bean
+	@Profile("!" + SimulationModule.PROFILE)
+	public PricingGateway getPricingGateway() {
+		return new TripPricerGateway(new TripPricer());
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	public ClusterMembership getClusterMembership(
+			@Value("${tourguide.cluster.self-id:}") String selfId,
+			@Value("${tourguide.cluster.nodes:}") List<String> nodes,
+			@Value("${tourguide.cluster.members-file:}") String membersFile,
+			@Value("${tourguide.cluster.members-file-refresh:10s}") Duration membersFileRefresh) {
+		if (!membersFile.isBlank()) {
+			return new ClusterMembership(selfId, Path.of(membersFile), membersFileRefresh);
+		}
+		return new ClusterMembership(selfId, nodes.stream()
+				.filter(node -> !node.isBlank())
+				.map(ClusterNode::parse)
+				.toList());
+	}
+
+	@Bean(destroyMethod = "stop")
+	public FlightRecorderEndpoint getFlightRecorderEndpoint(
+			@Value("${tourguide.jfr.max-duration:10m}") Duration maxDuration,
+			@Value("${tourguide.jfr.max-size:100MB}") DataSize maxSize) {
+		return new FlightRecorderEndpoint(maxDuration, maxSize.toBytes());
+	}
+
+	@Bean
+	public TrainingRun getTrainingRun(TourGuideService tourGuideService,
+			@Value("${tourguide.startup.training-run:false}") boolean enabled,
+			@Value("${tourguide.startup.training-user:internalUser0}") String userName) {
+		return new TrainingRun(enabled, tourGuideService, userName);
+	}
+
 }
@@ -0,0 +1,42 @@
+package com.openclassrooms.tourguide.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.service.TripDealPrecomputer;
+
+/**
+ * Prices trip deals in the background whenever the rewards or preferences of a user change,
+ * configured by the tourguide.trip-deals.* properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tourguide.trip-deals.precompute", havingValue = "true", matchIfMissing = true)
+public class TripDealModule {
+
+	@Bean(destroyMethod = "shutdown")
+	public TripDealPrecomputer getTripDealPrecomputer(TourGuideService tourGuideService,
+			RewardsService rewardsService, MeterRegistry meterRegistry,
+			@Value("${tourguide.trip-deals.threads:4}") int threads,
+			@Value("${tourguide.trip-deals.batch-size:100}") int batchSize,
+			@Value("${tourguide.trip-deals.batch-interval:1s}") Duration batchInterval,
+			@Value("${tourguide.trip-deals.max-staleness:5m}") Duration maxStaleness) {
+		TripDealPrecomputer tripDealPrecomputer = new TripDealPrecomputer(tourGuideService, threads, batchSize,
+				maxStaleness);
+		rewardsService.addRewardListener(tripDealPrecomputer);
+		tourGuideService.setTripDealPrecomputer(tripDealPrecomputer);
+		Gauge.builder("tourguide.tripdeals.dirty", tripDealPrecomputer, TripDealPrecomputer::getDirtyUserCount)
+				.description("Users whose trip deals wait for repricing")
+				.register(meterRegistry);
+		tripDealPrecomputer.start(batchInterval);
+		return tripDealPrecomputer;
+	}
+}
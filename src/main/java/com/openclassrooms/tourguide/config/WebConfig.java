@@ -0,0 +1,35 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.openclassrooms.tourguide.cluster.ClusterMembership;
+import com.openclassrooms.tourguide.cluster.PartitionOwnershipInterceptor;
+import com.openclassrooms.tourguide.scheduling.LoadSheddingInterceptor;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+	private final ClusterMembership clusterMembership;
+	private final boolean redirectToOwner;
+	private final ObjectProvider<LoadSheddingInterceptor> loadSheddingInterceptor;
+
+	public WebConfig(ClusterMembership clusterMembership,
+			@Value("${tourguide.cluster.forwarding:redirect}") String forwarding,
+			ObjectProvider<LoadSheddingInterceptor> loadSheddingInterceptor) {
+		this.clusterMembership = clusterMembership;
+		this.redirectToOwner = "redirect".equalsIgnoreCase(forwarding);
+		this.loadSheddingInterceptor = loadSheddingInterceptor;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new PartitionOwnershipInterceptor(clusterMembership, redirectToOwner));
+		// only the endpoints calling an upstream service are shed
+		loadSheddingInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+				.addPathPatterns("/getLocation", "/getNearbyAttractions", "/getTripDeals"));
+	}
+}
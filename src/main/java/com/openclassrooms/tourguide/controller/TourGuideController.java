@@ -1,15 +1,38 @@
 package com.openclassrooms.tourguide.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import gpsUtil.location.VisitedLocation;
 
+import com.openclassrooms.tourguide.gateway.UpstreamOverloadedException;
+import com.openclassrooms.tourguide.geo.BoundingBox;
+import com.openclassrooms.tourguide.ingestion.IngestionReport;
+import com.openclassrooms.tourguide.ingestion.UserIngestionService;
+import com.openclassrooms.tourguide.leaderboard.Leaderboard;
+import com.openclassrooms.tourguide.leaderboard.LeaderboardEntry;
+import com.openclassrooms.tourguide.notification.NotificationHub;
+import com.openclassrooms.tourguide.popularity.AttractionPopularity;
+import com.openclassrooms.tourguide.popularity.AttractionPopularityEntry;
+import com.openclassrooms.tourguide.popularity.SlidingWindowCounter.Window;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
@@ -18,9 +41,22 @@ import tripPricer.Provider;
 
 @RestController
 public class TourGuideController {
+	private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
 
 	@Autowired
 	TourGuideService tourGuideService;
+
+	@Autowired
+	NotificationHub notificationHub;
+
+	@Autowired
+	Leaderboard leaderboard;
+
+	@Autowired
+	UserIngestionService userIngestionService;
+
+	@Autowired
+	AttractionPopularity attractionPopularity;
 	
     @RequestMapping("/")
     public String index() {
@@ -44,23 +80,97 @@ public class TourGuideController {
     @RequestMapping("/getNearbyAttractions") 
     public List<NearbyAttractionDTO> getNearbyAttractions(@RequestParam String userName) {
     	User user = getUser(userName);
-        VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
+        VisitedLocation visitedLocation = tourGuideService.getUserLocation(user);
     	return tourGuideService.getNearByAttractions(visitedLocation, user);
     }
     
+    @RequestMapping("/getLocationHistory")
+    public List<VisitedLocation> getLocationHistory(@RequestParam String userName,
+    		@RequestParam(required = false) Instant from,
+    		@RequestParam(required = false) Instant to) {
+    	return tourGuideService.getUserLocationHistory(getUser(userName), toDate(from), toDate(to));
+    }
+
+    @RequestMapping("/getLocationsWithin")
+    public List<VisitedLocation> getLocationsWithin(@RequestParam String userName,
+    		@RequestParam double minLatitude, @RequestParam double minLongitude,
+    		@RequestParam double maxLatitude, @RequestParam double maxLongitude,
+    		@RequestParam(required = false) Instant from,
+    		@RequestParam(required = false) Instant to) {
+    	BoundingBox box = new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    	return tourGuideService.getUserLocationsWithin(getUser(userName), box, toDate(from), toDate(to));
+    }
+
     @RequestMapping("/getRewards") 
     public List<UserReward> getRewards(@RequestParam String userName) {
     	return tourGuideService.getUserRewards(getUser(userName));
     }
        
+    // Server-Sent Events stream of "geofence" and "reward" notifications for the user
+    @RequestMapping(value = "/notifications", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter notifications(@RequestParam String userName) {
+    	return notificationHub.subscribe(getUser(userName));
+    }
+
+    // at most Leaderboard.MAX_TOP users, a limit below 1 is answered with 400
+    @RequestMapping("/getLeaderboard")
+    public List<LeaderboardEntry> getLeaderboard(@RequestParam(defaultValue = "10") int limit) {
+    	return leaderboard.getTop(limit);
+    }
+
+    @RequestMapping("/getRank")
+    public LeaderboardEntry getRank(@RequestParam String userName) {
+    	return leaderboard.getStanding(getUser(userName));
+    }
+
+    // fewest reward points earned by the top percentile of the ranked users
+    @RequestMapping("/getPercentile")
+    public int getPercentile(@RequestParam double percentile) {
+    	return leaderboard.getPointsAtPercentile(percentile);
+    }
+
+    // most visited attractions over the last minute (1m), hour (1h) or day (24h)
+    @RequestMapping("/getPopularAttractions")
+    public List<AttractionPopularityEntry> getPopularAttractions(@RequestParam(defaultValue = "1h") String window,
+    		@RequestParam(defaultValue = "10") int limit) {
+    	return attractionPopularity.getMostPopular(Window.fromLabel(window), limit);
+    }
+
     @RequestMapping("/getTripDeals")
     public List<Provider> getTripDeals(@RequestParam String userName) {
     	return tourGuideService.getTripDeals(getUser(userName));
     }
     
+    // streams users in, as NDJSON (one user per line) or CSV (one visited location per row)
+    @PostMapping(value = "/importUsers", consumes = { "application/x-ndjson", "text/csv" })
+    public IngestionReport importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+    		InputStream body) throws IOException {
+    	if (MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)) {
+    		return userIngestionService.ingestCsv(body);
+    	}
+    	return userIngestionService.ingestNdjson(body);
+    }
+
     private User getUser(String userName) {
     	return tourGuideService.getUser(userName);
     }
+
+    private Date toDate(Instant instant) {
+    	return instant == null ? null : Date.from(instant);
+    }
+
+    @ExceptionHandler(UpstreamOverloadedException.class)
+    public ResponseEntity<String> handleOverloaded(UpstreamOverloadedException e) {
+    	return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+    			.header(HttpHeaders.RETRY_AFTER, "1")
+    			.body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleIllegalArgument(IllegalArgumentException e) {
+    	return e.getMessage();
+    }
    
 
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.openclassrooms.tourguide.event;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * A new location tracked for a user.
+ *
+ * @param user The tracked user
+ * @param visitedLocation The new location
+ * @param rewardsCalculated true if the tracking path already calculated the user's rewards
+ */
+public record LocationEvent(User user, VisitedLocation visitedLocation, boolean rewardsCalculated) {
+}
@@ -0,0 +1,140 @@
+package com.openclassrooms.tourguide.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded in-process bus carrying location events from the tracking threads to the
+ * downstream stages, in the style of a disruptor ring buffer.
+ *
+ * Producers claim a sequence number once its slot is free and write their event in the
+ * matching slot of a preallocated ring; a single consumer thread reads the slots in sequence order and hands
+ * the events to the subscribed handlers in batches. When the ring is full, producers wait
+ * for the consumer to free a slot.
+ */
+public class LocationEventBus {
+	private static final long PRODUCER_BACKOFF_NANOS = 10_000;
+	private static final long CONSUMER_PARK_NANOS = 1_000_000;
+
+	private Logger logger = LoggerFactory.getLogger(LocationEventBus.class);
+	private final AtomicReferenceArray<LocationEvent> ring;
+	private final int capacity;
+	private final int mask;
+	private final int maxBatchSize;
+	private final List<LocationEventHandler> handlers = new CopyOnWriteArrayList<>();
+	private final AtomicLong claimedSequence = new AtomicLong();
+	private final Thread consumer;
+	// every event below these sequences has been taken off the ring / handed to the handlers
+	private volatile long consumedSequence;
+	private volatile long dispatchedSequence;
+	private volatile boolean consumerWaiting;
+	private volatile boolean running = true;
+
+	/**
+	 * @param capacity Number of slots of the ring, rounded up to a power of two
+	 * @param maxBatchSize Maximum number of events handed to the handlers at once
+	 */
+	public LocationEventBus(int capacity, int maxBatchSize) {
+		this.capacity = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+		this.mask = this.capacity - 1;
+		this.maxBatchSize = maxBatchSize;
+		this.ring = new AtomicReferenceArray<>(this.capacity);
+		this.consumer = new Thread(this::consume, "location-event-consumer");
+		this.consumer.setDaemon(true);
+		this.consumer.start();
+	}
+
+	/**
+	 * Registers a handler receiving every event published from now on.
+	 *
+	 * @param handler The handler
+	 */
+	public void subscribe(LocationEventHandler handler) {
+		handlers.add(handler);
+	}
+
+	/**
+	 * Publishes an event, waiting for a free slot when the ring is full.
+	 *
+	 * @param event The event
+	 */
+	public void publish(LocationEvent event) {
+		while (true) {
+			long sequence = claimedSequence.get();
+			if (sequence - consumedSequence >= capacity) {
+				if (!running) {
+					throw new IllegalStateException("Location event bus is shut down");
+				}
+				LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+			} else if (claimedSequence.compareAndSet(sequence, sequence + 1)) {
+				// claimed once its slot is free, so every claimed slot gets filled
+				ring.set((int) (sequence & mask), event);
+				if (consumerWaiting) {
+					LockSupport.unpark(consumer);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Waits until every event published so far has been handed to the handlers.
+	 */
+	public void awaitDispatched() {
+		long published = claimedSequence.get();
+		while (dispatchedSequence < published && consumer.isAlive()) {
+			LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+		}
+	}
+
+	/**
+	 * Stops the consumer once the events already published are dispatched.
+	 */
+	public void shutdown() {
+		running = false;
+		LockSupport.unpark(consumer);
+	}
+
+	private void consume() {
+		List<LocationEvent> batch = new ArrayList<>(maxBatchSize);
+		long next = 0;
+		while (running || next < claimedSequence.get()) {
+			LocationEvent event;
+			while (batch.size() < maxBatchSize && (event = ring.get((int) (next & mask))) != null) {
+				ring.set((int) (next & mask), null);
+				batch.add(event);
+				next++;
+			}
+			if (batch.isEmpty()) {
+				consumerWaiting = true;
+				// a claimed slot may not be written yet, even after shutdown
+				if (ring.get((int) (next & mask)) == null) {
+					LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+				}
+				consumerWaiting = false;
+				continue;
+			}
+			consumedSequence = next;
+			dispatch(batch);
+			dispatchedSequence = next;
+			batch.clear();
+		}
+	}
+
+	private void dispatch(List<LocationEvent> batch) {
+		for (LocationEventHandler handler : handlers) {
+			try {
+				handler.onEvents(batch);
+			} catch (RuntimeException e) {
+				logger.error("Location event handler failed", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.event;
+
+import java.util.List;
+
+/**
+ * Consumer of the location events published on a {@link LocationEventBus}.
+ *
+ * Handlers run on the bus consumer thread and must hand long work over to their own threads.
+ */
+public interface LocationEventHandler {
+
+	/**
+	 * @param events The events published since the previous call, in publication order
+	 */
+	void onEvents(List<LocationEvent> events);
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Access to the GPS service locating users and listing attractions.
+ */
+public interface GpsGateway {
+
+	/**
+	 * Locates a user.
+	 *
+	 * @param userId The user to locate
+	 * @return The current location of the user
+	 */
+	VisitedLocation getUserLocation(UUID userId);
+
+	/**
+	 * @return Every known attraction
+	 */
+	List<Attraction> getAttractions();
+}
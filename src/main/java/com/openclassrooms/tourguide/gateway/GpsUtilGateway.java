@@ -0,0 +1,31 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+import com.openclassrooms.tourguide.jfr.UpstreamCallEvent;
+
+/**
+ * {@link GpsGateway} backed by the gpsUtil library.
+ */
+public class GpsUtilGateway implements GpsGateway {
+	private final GpsUtil gpsUtil;
+
+	public GpsUtilGateway(GpsUtil gpsUtil) {
+		this.gpsUtil = gpsUtil;
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return UpstreamCallEvent.record("gps", "getUserLocation", () -> gpsUtil.getUserLocation(userId));
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return UpstreamCallEvent.record("gps", "getAttractions", gpsUtil::getAttractions);
+	}
+}
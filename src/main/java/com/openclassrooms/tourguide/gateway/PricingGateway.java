@@ -0,0 +1,25 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+
+/**
+ * Access to the trip pricing service.
+ */
+public interface PricingGateway {
+
+	/**
+	 * Gets trip offers for a user.
+	 *
+	 * @param apiKey The pricing service API key
+	 * @param attractionId The trip identifier, the user id is used by TourGuide
+	 * @param adults Number of adults
+	 * @param children Number of children
+	 * @param nightsStay Trip duration in nights
+	 * @param rewardsPoints Reward points the user can spend
+	 * @return The offers of every provider
+	 */
+	List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay, int rewardsPoints);
+}
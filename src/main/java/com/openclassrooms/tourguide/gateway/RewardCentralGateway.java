@@ -0,0 +1,24 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.UUID;
+
+import rewardCentral.RewardCentral;
+
+import com.openclassrooms.tourguide.jfr.UpstreamCallEvent;
+
+/**
+ * {@link RewardGateway} backed by the RewardCentral library.
+ */
+public class RewardCentralGateway implements RewardGateway {
+	private final RewardCentral rewardCentral;
+
+	public RewardCentralGateway(RewardCentral rewardCentral) {
+		this.rewardCentral = rewardCentral;
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return UpstreamCallEvent.record("rewards", "getAttractionRewardPoints",
+				() -> rewardCentral.getAttractionRewardPoints(attractionId, userId));
+	}
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.UUID;
+
+/**
+ * Access to the reward service granting points for visited attractions.
+ */
+public interface RewardGateway {
+
+	/**
+	 * Gets the points a user earns by visiting an attraction.
+	 *
+	 * @param attractionId The visited attraction
+	 * @param userId The visitor
+	 * @return The reward points
+	 */
+	int getAttractionRewardPoints(UUID attractionId, UUID userId);
+}
@@ -0,0 +1,27 @@
+package com.openclassrooms.tourguide.gateway;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+import com.openclassrooms.tourguide.jfr.UpstreamCallEvent;
+
+/**
+ * {@link PricingGateway} backed by the TripPricer library.
+ */
+public class TripPricerGateway implements PricingGateway {
+	private final TripPricer tripPricer;
+
+	public TripPricerGateway(TripPricer tripPricer) {
+		this.tripPricer = tripPricer;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		return UpstreamCallEvent.record("pricer", "getPrice",
+				() -> tripPricer.getPrice(apiKey, attractionId, adults, children, nightsStay, rewardsPoints));
+	}
+}
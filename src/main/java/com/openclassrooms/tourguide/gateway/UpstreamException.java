@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.gateway;
+
+/**
+ * Raised when an upstream service (GPS, rewards or pricing) fails to answer.
+ */
+public class UpstreamException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public UpstreamException(String message) {
+		super(message);
+	}
+
+	public UpstreamException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
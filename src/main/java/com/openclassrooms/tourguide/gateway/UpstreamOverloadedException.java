@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.gateway;
+
+/**
+ * Raised when a call to an upstream service is shed because the service has no capacity
+ * left for it within its queueing time; the service itself was not called.
+ */
+public class UpstreamOverloadedException extends UpstreamException {
+	private static final long serialVersionUID = 1L;
+
+	public UpstreamOverloadedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,113 @@
+package com.openclassrooms.tourguide.gateway.resilience;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * The breaker opens when the share of failures among the last calls reaches the threshold,
+ * then rejects calls until the open duration has elapsed. A single trial call is then let
+ * through: its success closes the breaker, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+	public enum State { CLOSED, OPEN, HALF_OPEN }
+
+	private final double failureRateThreshold;
+	private final long openDurationNanos;
+	private final boolean[] outcomes;
+	private int recordedCalls;
+	private int nextOutcome;
+	private int failures;
+	private State state = State.CLOSED;
+	private long openedAtNanos;
+	private boolean trialCallInProgress;
+
+	/**
+	 * @param failureRateThreshold Share of failed calls opening the breaker, between 0 and 1
+	 * @param slidingWindowSize Number of recent calls the failure rate is computed on
+	 * @param openDuration Time the breaker stays open before a trial call
+	 */
+	public CircuitBreaker(double failureRateThreshold, int slidingWindowSize, Duration openDuration) {
+		this.failureRateThreshold = failureRateThreshold;
+		this.openDurationNanos = openDuration.toNanos();
+		this.outcomes = new boolean[slidingWindowSize];
+	}
+
+	/**
+	 * Checks whether a call may be sent, moving an expired open breaker to half-open.
+	 *
+	 * @return true if the call can proceed
+	 */
+	public synchronized boolean tryAcquirePermission() {
+		if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+			state = State.HALF_OPEN;
+			trialCallInProgress = false;
+		}
+		if (state == State.HALF_OPEN) {
+			if (trialCallInProgress) {
+				return false;
+			}
+			trialCallInProgress = true;
+			return true;
+		}
+		return state == State.CLOSED;
+	}
+
+	public synchronized void onSuccess() {
+		if (state == State.HALF_OPEN) {
+			reset();
+			return;
+		}
+		record(false);
+	}
+
+	public synchronized void onFailure() {
+		if (state == State.HALF_OPEN) {
+			open();
+			return;
+		}
+		record(true);
+		if (recordedCalls == outcomes.length && failures >= failureRateThreshold * outcomes.length) {
+			open();
+		}
+	}
+
+	/**
+	 * Gives back a permission whose call was never sent or whose outcome is unknown, so that
+	 * a half-open breaker lets another trial call through.
+	 */
+	public synchronized void release() {
+		if (state == State.HALF_OPEN) {
+			trialCallInProgress = false;
+		}
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	private void record(boolean failure) {
+		if (recordedCalls == outcomes.length && outcomes[nextOutcome]) {
+			failures--;
+		}
+		outcomes[nextOutcome] = failure;
+		if (failure) {
+			failures++;
+		}
+		nextOutcome = (nextOutcome + 1) % outcomes.length;
+		recordedCalls = Math.min(recordedCalls + 1, outcomes.length);
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAtNanos = System.nanoTime();
+	}
+
+	private void reset() {
+		state = State.CLOSED;
+		recordedCalls = 0;
+		nextOutcome = 0;
+		failures = 0;
+	}
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.tourguide.gateway.resilience;
+
+import java.time.Duration;
+
+/**
+ * Protection settings of one upstream service.
+ *
+ * @param timeout Longest time a caller waits for an answer, hedged attempts included
+ * @param maxConcurrentCalls Threads dedicated to the service (bulkhead size)
+ * @param maxQueuedCalls Calls waiting for a bulkhead thread before new calls are rejected
+ * @param hedgeDelay Delay after which a second, hedged attempt is sent, zero to disable hedging
+ * @param failureRateThreshold Share of failed calls opening the circuit breaker, between 0 and 1
+ * @param slidingWindowSize Number of recent calls the failure rate is computed on
+ * @param openDuration Time the circuit stays open before a trial call is let through
+ */
+public record ResiliencePolicy(
+		Duration timeout,
+		int maxConcurrentCalls,
+		int maxQueuedCalls,
+		Duration hedgeDelay,
+		double failureRateThreshold,
+		int slidingWindowSize,
+		Duration openDuration
+) {
+
+	/**
+	 * @return true if slow calls are hedged
+	 */
+	public boolean hedging() {
+		return !hedgeDelay.isZero() && hedgeDelay.compareTo(timeout) < 0;
+	}
+}
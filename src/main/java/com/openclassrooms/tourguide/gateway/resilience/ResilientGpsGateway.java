@@ -0,0 +1,39 @@
+package com.openclassrooms.tourguide.gateway.resilience;
+
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+
+/**
+ * {@link GpsGateway} calling its delegate through an {@link UpstreamGuard}.
+ */
+public class ResilientGpsGateway implements GpsGateway {
+	private final GpsGateway delegate;
+	private final UpstreamGuard guard;
+
+	public ResilientGpsGateway(GpsGateway delegate, UpstreamGuard guard) {
+		this.delegate = delegate;
+		this.guard = guard;
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		return guard.call(() -> delegate.getUserLocation(userId));
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return guard.call(delegate::getAttractions);
+	}
+
+	public UpstreamGuard getGuard() {
+		return guard;
+	}
+
+	public void shutdown() {
+		guard.shutdown();
+	}
+}
@@ -0,0 +1,34 @@
+package com.openclassrooms.tourguide.gateway.resilience;
+
+import java.util.List;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+
+/**
+ * {@link PricingGateway} calling its delegate through an {@link UpstreamGuard}.
+ */
+public class ResilientPricingGateway implements PricingGateway {
+	private final PricingGateway delegate;
+	private final UpstreamGuard guard;
+
+	public ResilientPricingGateway(PricingGateway delegate, UpstreamGuard guard) {
+		this.delegate = delegate;
+		this.guard = guard;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		return guard.call(() -> delegate.getPrice(apiKey, attractionId, adults, children, nightsStay, rewardsPoints));
+	}
+
+	public UpstreamGuard getGuard() {
+		return guard;
+	}
+
+	public void shutdown() {
+		guard.shutdown();
+	}
+}
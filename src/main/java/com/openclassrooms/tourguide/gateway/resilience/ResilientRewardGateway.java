@@ -0,0 +1,31 @@
+package com.openclassrooms.tourguide.gateway.resilience;
+
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+
+/**
+ * {@link RewardGateway} calling its delegate through an {@link UpstreamGuard}.
+ */
+public class ResilientRewardGateway implements RewardGateway {
+	private final RewardGateway delegate;
+	private final UpstreamGuard guard;
+
+	public ResilientRewardGateway(RewardGateway delegate, UpstreamGuard guard) {
+		this.delegate = delegate;
+		this.guard = guard;
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return guard.call(() -> delegate.getAttractionRewardPoints(attractionId, userId));
+	}
+
+	public UpstreamGuard getGuard() {
+		return guard;
+	}
+
+	public void shutdown() {
+		guard.shutdown();
+	}
+}
@@ -0,0 +1,267 @@
+package com.openclassrooms.tourguide.gateway.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.openclassrooms.tourguide.gateway.UpstreamException;
+import com.openclassrooms.tourguide.gateway.UpstreamOverloadedException;
+import com.openclassrooms.tourguide.scheduling.AdmissionController;
+import com.openclassrooms.tourguide.scheduling.AdmissionPolicy;
+import com.openclassrooms.tourguide.scheduling.Priority;
+
+/**
+ * Protects the callers of one upstream service.
+ *
+ * <ul>
+ * <li>Bulkhead: calls run on threads dedicated to the service, so a slow service can only
+ * exhaust its own capacity; calls beyond the queue capacity are rejected at once.</li>
+ * <li>Timeout: callers give up after the policy timeout and the attempt is interrupted.</li>
+ * <li>Circuit breaker: once too many calls fail, calls are rejected without being sent.</li>
+ * <li>Hedging: when an attempt is slower than the hedge delay, a second one is sent and the
+ * first answer wins, which cuts the latency tail of services with random slow calls. Only
+ * interactive calls are hedged.</li>
+ * <li>Admission: an {@link AdmissionController} adapts the number of concurrent calls to the
+ * latency of the service and reserves part of it for interactive calls; calls that cannot be
+ * admitted in time are shed.</li>
+ * </ul>
+ *
+ * Metrics, tagged with the upstream name: {@code tourguide.upstream.attempt} is the latency of
+ * each attempt as seen without protection, {@code tourguide.upstream.call} the latency seen by
+ * callers; comparing their p99 shows the latency recovered by hedging and timeouts.
+ * {@code tourguide.upstream.calls} counts calls by outcome and {@code tourguide.upstream.hedges}
+ * the hedged attempts sent and won. {@code tourguide.upstream.limit} is the current adaptive
+ * concurrency limit.
+ */
+public class UpstreamGuard {
+	private final String upstream;
+	private final ResiliencePolicy policy;
+	private final ThreadPoolExecutor bulkhead;
+	private final CircuitBreaker circuitBreaker;
+	private final AdmissionController admissionController;
+	private final Timer attemptTimer;
+	private final Timer callTimer;
+	private final MeterRegistry meterRegistry;
+	private final Counter hedgesSent;
+	private final Counter hedgesWon;
+
+	/**
+	 * Constructs a guard without admission control beyond the bulkhead: calls are admitted
+	 * as long as the bulkhead threads and queue accept them, whatever their priority.
+	 *
+	 * @param upstream Name of the protected service, used in metrics and errors
+	 * @param policy The protection settings
+	 * @param meterRegistry Registry receiving the metrics
+	 */
+	public UpstreamGuard(String upstream, ResiliencePolicy policy, MeterRegistry meterRegistry) {
+		this(upstream, policy, fixedAdmission(policy.maxConcurrentCalls() + policy.maxQueuedCalls(), policy.timeout()),
+				meterRegistry);
+	}
+
+	/**
+	 * @param upstream Name of the protected service, used in metrics and errors
+	 * @param policy The protection settings
+	 * @param admissionPolicy The admission settings
+	 * @param meterRegistry Registry receiving the metrics
+	 */
+	public UpstreamGuard(String upstream, ResiliencePolicy policy, AdmissionPolicy admissionPolicy,
+			MeterRegistry meterRegistry) {
+		this.upstream = upstream;
+		this.policy = policy;
+		this.admissionController = new AdmissionController(admissionPolicy);
+		this.meterRegistry = meterRegistry;
+		this.circuitBreaker = new CircuitBreaker(policy.failureRateThreshold(), policy.slidingWindowSize(),
+				policy.openDuration());
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.bulkhead = new ThreadPoolExecutor(policy.maxConcurrentCalls(), policy.maxConcurrentCalls(),
+				60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, policy.maxQueuedCalls())), runnable -> {
+					Thread thread = new Thread(runnable, upstream + "-bulkhead-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.bulkhead.allowCoreThreadTimeOut(true);
+		this.attemptTimer = Timer.builder("tourguide.upstream.attempt").tag("upstream", upstream)
+				.publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+		this.callTimer = Timer.builder("tourguide.upstream.call").tag("upstream", upstream)
+				.publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+		this.hedgesSent = Counter.builder("tourguide.upstream.hedges").tag("upstream", upstream)
+				.tag("result", "sent").register(meterRegistry);
+		this.hedgesWon = Counter.builder("tourguide.upstream.hedges").tag("upstream", upstream)
+				.tag("result", "won").register(meterRegistry);
+		Gauge.builder("tourguide.upstream.limit", admissionController, AdmissionController::getLimit)
+				.tag("upstream", upstream).register(meterRegistry);
+	}
+
+	/**
+	 * Calls the upstream service under protection.
+	 *
+	 * @param operation The call to the service
+	 * @return The service answer
+	 * @throws UpstreamOverloadedException if the call was shed
+	 * @throws UpstreamException if the call was rejected, timed out or failed
+	 */
+	public <T> T call(Supplier<T> operation) {
+		Priority priority = Priority.current();
+		try {
+			if (!admissionController.acquire(priority)) {
+				countCall("shed");
+				throw new UpstreamOverloadedException(upstream + " is overloaded, "
+						+ priority.name().toLowerCase() + " call shed");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UpstreamException(upstream + " call interrupted", e);
+		}
+		// only admitted calls take the breaker permission, a shed call never holds a half-open trial
+		if (!circuitBreaker.tryAcquirePermission()) {
+			admissionController.cancel();
+			countCall("short_circuited");
+			throw new UpstreamException(upstream + " circuit breaker is open");
+		}
+
+		long start = System.nanoTime();
+		boolean overloaded = true;
+		// every exit must report to the breaker, or release a half-open trial permission
+		boolean reported = false;
+		boolean interrupted = false;
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicInteger pendingAttempts = new AtomicInteger(1);
+		Future<?> primary;
+		Future<?> hedge = null;
+		try {
+			primary = bulkhead.submit(() -> attempt(operation, result, pendingAttempts, false));
+		} catch (RejectedExecutionException e) {
+			admissionController.release(System.nanoTime() - start, true);
+			circuitBreaker.onFailure();
+			countCall("rejected");
+			throw new UpstreamException(upstream + " bulkhead is full", e);
+		}
+
+		try {
+			T value;
+			long timeoutNanos = policy.timeout().toNanos();
+			if (policy.hedging() && priority == Priority.INTERACTIVE) {
+				try {
+					value = result.get(policy.hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+				} catch (TimeoutException slowAttempt) {
+					hedge = sendHedge(operation, result, pendingAttempts);
+					value = result.get(timeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+				}
+			} else {
+				value = result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+			}
+			circuitBreaker.onSuccess();
+			reported = true;
+			countCall("success");
+			overloaded = false;
+			return value;
+		} catch (TimeoutException e) {
+			circuitBreaker.onFailure();
+			reported = true;
+			countCall("timeout");
+			throw new UpstreamException(upstream + " did not answer within " + policy.timeout().toMillis() + " ms");
+		} catch (ExecutionException e) {
+			circuitBreaker.onFailure();
+			reported = true;
+			countCall("failure");
+			throw e.getCause() instanceof UpstreamException upstreamException ? upstreamException
+					: new UpstreamException(upstream + " call failed", e.getCause());
+		} catch (InterruptedException e) {
+			// the caller gave up, which says nothing of the service: no penalty on the limit
+			interrupted = true;
+			Thread.currentThread().interrupt();
+			throw new UpstreamException(upstream + " call interrupted", e);
+		} finally {
+			if (!reported) {
+				circuitBreaker.release();
+			}
+			// frees the bulkhead threads still running a lost or timed out attempt
+			primary.cancel(true);
+			if (hedge != null) {
+				hedge.cancel(true);
+			}
+			long elapsed = System.nanoTime() - start;
+			if (interrupted) {
+				admissionController.cancel();
+			} else {
+				admissionController.release(elapsed, overloaded);
+			}
+			callTimer.record(elapsed, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Stops the bulkhead threads.
+	 */
+	public void shutdown() {
+		bulkhead.shutdownNow();
+	}
+
+	/**
+	 * @return The admission control of the calls to the service
+	 */
+	public AdmissionController getAdmissionController() {
+		return admissionController;
+	}
+
+	/**
+	 * @return The state of the circuit breaker
+	 */
+	public CircuitBreaker.State getCircuitBreakerState() {
+		return circuitBreaker.getState();
+	}
+
+	private static AdmissionPolicy fixedAdmission(int limit, Duration latencyTarget) {
+		return new AdmissionPolicy(limit, limit, 0, Duration.ZERO, Duration.ZERO, latencyTarget);
+	}
+
+	private <T> Future<?> sendHedge(Supplier<T> operation, CompletableFuture<T> result, AtomicInteger pendingAttempts) {
+		pendingAttempts.incrementAndGet();
+		try {
+			Future<?> hedge = bulkhead.submit(() -> attempt(operation, result, pendingAttempts, true));
+			hedgesSent.increment();
+			return hedge;
+		} catch (RejectedExecutionException e) {
+			// no spare capacity, keep waiting for the first attempt
+			pendingAttempts.decrementAndGet();
+			return null;
+		}
+	}
+
+	private <T> void attempt(Supplier<T> operation, CompletableFuture<T> result, AtomicInteger pendingAttempts,
+			boolean hedged) {
+		if (result.isDone()) {
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			T value = operation.get();
+			attemptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (result.complete(value) && hedged) {
+				hedgesWon.increment();
+			}
+		} catch (RuntimeException e) {
+			// only fail the call once every attempt failed
+			if (pendingAttempts.decrementAndGet() == 0) {
+				result.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void countCall(String outcome) {
+		meterRegistry.counter("tourguide.upstream.calls", "upstream", upstream, "outcome", outcome).increment();
+	}
+}
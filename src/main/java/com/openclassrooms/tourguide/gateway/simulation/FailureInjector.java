@@ -0,0 +1,35 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.openclassrooms.tourguide.gateway.UpstreamException;
+
+/**
+ * Makes a share of the simulated upstream calls fail.
+ */
+public class FailureInjector {
+	public static final FailureInjector NONE = new FailureInjector(0);
+
+	private final double failureRate;
+
+	/**
+	 * @param failureRate Share of failing calls, between 0 and 1
+	 */
+	public FailureInjector(double failureRate) {
+		if (failureRate < 0 || failureRate > 1) {
+			throw new IllegalArgumentException("Failure rate must be between 0 and 1, got " + failureRate);
+		}
+		this.failureRate = failureRate;
+	}
+
+	/**
+	 * Throws an {@link UpstreamException} with the configured probability.
+	 *
+	 * @param upstream Name of the simulated service, used in the error message
+	 */
+	public void maybeFail(String upstream) {
+		if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+			throw new UpstreamException("Simulated " + upstream + " failure");
+		}
+	}
+}
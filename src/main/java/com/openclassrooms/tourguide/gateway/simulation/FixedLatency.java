@@ -0,0 +1,14 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+/**
+ * Same delay for every call.
+ *
+ * @param delayMillis The delay in milliseconds
+ */
+public record FixedLatency(long delayMillis) implements LatencyModel {
+
+	@Override
+	public long nextDelayMillis() {
+		return delayMillis;
+	}
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delay applied by a simulated upstream service before answering.
+ */
+public interface LatencyModel {
+
+	LatencyModel NONE = () -> 0;
+
+	/**
+	 * @return The delay of the next call, in milliseconds
+	 */
+	long nextDelayMillis();
+
+	/**
+	 * Blocks the calling thread for one sampled delay.
+	 */
+	default void pause() {
+		long delay = nextDelayMillis();
+		if (delay <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.MILLISECONDS.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Builds a latency model from its textual form:
+	 * <ul>
+	 * <li>{@code none}: no delay</li>
+	 * <li>{@code fixed:50}: always 50 ms</li>
+	 * <li>{@code uniform:20-80}: uniformly drawn between 20 and 80 ms</li>
+	 * <li>{@code lognormal:40,400}: log-normal distribution with a 40 ms median and a 400 ms p99</li>
+	 * <li>{@code trace:/path/to/latencies.csv}: replays recorded latencies, one per line</li>
+	 * </ul>
+	 *
+	 * @param specification The latency specification
+	 * @return The latency model
+	 */
+	static LatencyModel parse(String specification) {
+		String spec = specification.trim();
+		int separator = spec.indexOf(':');
+		String type = separator < 0 ? spec : spec.substring(0, separator);
+		String arguments = separator < 0 ? "" : spec.substring(separator + 1).trim();
+		return switch (type) {
+			case "none", "" -> NONE;
+			case "fixed" -> new FixedLatency(Long.parseLong(arguments));
+			case "uniform" -> {
+				String[] bounds = arguments.split("-");
+				yield new UniformLatency(Long.parseLong(bounds[0].trim()), Long.parseLong(bounds[1].trim()));
+			}
+			case "lognormal" -> {
+				String[] parameters = arguments.split(",");
+				yield new LogNormalLatency(Double.parseDouble(parameters[0].trim()), Double.parseDouble(parameters[1].trim()));
+			}
+			case "trace" -> TraceLatency.load(Path.of(arguments));
+			default -> throw new IllegalArgumentException("Unknown latency model: " + specification);
+		};
+	}
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normally distributed delay, the usual shape of remote service latencies: most calls
+ * are close to the median while a long tail reaches the p99.
+ */
+public class LogNormalLatency implements LatencyModel {
+	// z-score of the 99th percentile of the standard normal distribution
+	private static final double P99_Z_SCORE = 2.3263;
+
+	private final double mu;
+	private final double sigma;
+
+	/**
+	 * @param medianMillis Median delay in milliseconds
+	 * @param p99Millis 99th percentile of the delay in milliseconds
+	 */
+	public LogNormalLatency(double medianMillis, double p99Millis) {
+		if (medianMillis <= 0 || p99Millis < medianMillis) {
+			throw new IllegalArgumentException("Expected 0 < median <= p99, got " + medianMillis + " and " + p99Millis);
+		}
+		this.mu = Math.log(medianMillis);
+		this.sigma = Math.log(p99Millis / medianMillis) / P99_Z_SCORE;
+	}
+
+	@Override
+	public long nextDelayMillis() {
+		return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+	}
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+
+/**
+ * Local stand-in for the GPS service, returning random locations after a simulated delay.
+ *
+ * The attraction catalogue is read once from gpsUtil and served without delay.
+ */
+public class SimulatedGpsGateway implements GpsGateway {
+	private final LatencyModel latency;
+	private final FailureInjector failureInjector;
+	private final List<Attraction> attractions;
+
+	public SimulatedGpsGateway(LatencyModel latency, FailureInjector failureInjector) {
+		this.latency = latency;
+		this.failureInjector = failureInjector;
+		this.attractions = List.copyOf(new GpsUtil().getAttractions());
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		latency.pause();
+		failureInjector.maybeFail("GPS");
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		Location location = new Location(random.nextDouble(-85.05112878, 85.05112878), random.nextDouble(-180, 180));
+		return new VisitedLocation(userId, location, new Date());
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+}
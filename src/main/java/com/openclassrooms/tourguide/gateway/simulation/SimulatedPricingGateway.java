@@ -0,0 +1,36 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import tripPricer.Provider;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+
+/**
+ * Local stand-in for TripPricer, returning five random offers after a simulated delay.
+ */
+public class SimulatedPricingGateway implements PricingGateway {
+	private static final int OFFERS = 5;
+
+	private final LatencyModel latency;
+	private final FailureInjector failureInjector;
+
+	public SimulatedPricingGateway(LatencyModel latency, FailureInjector failureInjector) {
+		this.latency = latency;
+		this.failureInjector = failureInjector;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay,
+			int rewardsPoints) {
+		latency.pause();
+		failureInjector.maybeFail("TripPricer");
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return IntStream.range(0, OFFERS)
+				.mapToObj(i -> new Provider(attractionId, "Simulated provider " + i,
+						Math.max(0, random.nextInt(100, 700) * (adults + children / 2) * nightsStay + 0.99 - rewardsPoints)))
+				.toList();
+	}
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+
+/**
+ * Local stand-in for RewardCentral, granting random points after a simulated delay.
+ */
+public class SimulatedRewardGateway implements RewardGateway {
+	private final LatencyModel latency;
+	private final FailureInjector failureInjector;
+
+	public SimulatedRewardGateway(LatencyModel latency, FailureInjector failureInjector) {
+		this.latency = latency;
+		this.failureInjector = failureInjector;
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		latency.pause();
+		failureInjector.maybeFail("RewardCentral");
+		return ThreadLocalRandom.current().nextInt(1, 1000);
+	}
+}
@@ -0,0 +1,51 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays latencies recorded on a real upstream service, in order and in a loop.
+ */
+public class TraceLatency implements LatencyModel {
+	private final long[] delaysMillis;
+	private final AtomicLong nextIndex = new AtomicLong();
+
+	/**
+	 * @param delaysMillis The recorded delays in milliseconds
+	 */
+	public TraceLatency(long[] delaysMillis) {
+		if (delaysMillis.length == 0) {
+			throw new IllegalArgumentException("A latency trace needs at least one value");
+		}
+		this.delaysMillis = delaysMillis.clone();
+	}
+
+	/**
+	 * Loads a trace file holding one latency in milliseconds per line. For CSV lines the
+	 * last column is used; blank lines, comments (#) and non numeric headers are skipped.
+	 *
+	 * @param traceFile The trace file
+	 * @return The latency model replaying the trace
+	 */
+	public static TraceLatency load(Path traceFile) {
+		try {
+			return new TraceLatency(Files.readAllLines(traceFile).stream()
+					.map(String::trim)
+					.filter(line -> !line.isEmpty() && !line.startsWith("#"))
+					.map(line -> line.substring(line.lastIndexOf(',') + 1).trim())
+					.filter(value -> value.matches("\\d+(\\.\\d+)?"))
+					.mapToLong(value -> Math.round(Double.parseDouble(value)))
+					.toArray());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read latency trace " + traceFile, e);
+		}
+	}
+
+	@Override
+	public long nextDelayMillis() {
+		return delaysMillis[(int) (nextIndex.getAndIncrement() % delaysMillis.length)];
+	}
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.tourguide.gateway.simulation;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delay drawn uniformly between two bounds.
+ *
+ * @param minMillis Shortest delay in milliseconds
+ * @param maxMillis Longest delay in milliseconds
+ */
+public record UniformLatency(long minMillis, long maxMillis) implements LatencyModel {
+
+	@Override
+	public long nextDelayMillis() {
+		return ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+	}
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * Rectangle of latitudes and longitudes, in degrees. Boxes crossing the antimeridian are
+ * not supported: the minimum longitude must be the westernmost one.
+ */
+public record BoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+
+	public BoundingBox {
+		if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+			throw new IllegalArgumentException("Empty bounding box: " + minLatitude + "," + minLongitude
+					+ " - " + maxLatitude + "," + maxLongitude);
+		}
+	}
+
+	public boolean contains(Location location) {
+		return contains(location.latitude, location.longitude);
+	}
+
+	public boolean contains(double latitude, double longitude) {
+		return latitude >= minLatitude && latitude <= maxLatitude
+				&& longitude >= minLongitude && longitude <= maxLongitude;
+	}
+
+	public boolean intersects(BoundingBox other) {
+		return minLatitude <= other.maxLatitude && maxLatitude >= other.minLatitude
+				&& minLongitude <= other.maxLongitude && maxLongitude >= other.minLongitude;
+	}
+}
@@ -0,0 +1,37 @@
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * Distances in meters on a local flat projection, accurate enough at the scale of a
+ * trajectory (a few kilometers) and much cheaper than great-circle formulas.
+ */
+final class Distances {
+	private static final double EARTH_RADIUS_METERS = 6_371_000;
+
+	private Distances() {
+	}
+
+	static double between(Location a, Location b) {
+		double cosLatitude = Math.cos(Math.toRadians((a.latitude + b.latitude) / 2));
+		double dx = Math.toRadians(b.longitude - a.longitude) * cosLatitude;
+		double dy = Math.toRadians(b.latitude - a.latitude);
+		return Math.sqrt(dx * dx + dy * dy) * EARTH_RADIUS_METERS;
+	}
+
+	/**
+	 * @return The distance from a point to the segment between two other points
+	 */
+	static double toSegment(Location point, Location start, Location end) {
+		double cosLatitude = Math.cos(Math.toRadians((start.latitude + end.latitude) / 2));
+		double ex = Math.toRadians(end.longitude - start.longitude) * cosLatitude;
+		double ey = Math.toRadians(end.latitude - start.latitude);
+		double px = Math.toRadians(point.longitude - start.longitude) * cosLatitude;
+		double py = Math.toRadians(point.latitude - start.latitude);
+		double lengthSquared = ex * ex + ey * ey;
+		double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * ex + py * ey) / lengthSquared));
+		double dx = px - t * ex;
+		double dy = py - t * ey;
+		return Math.sqrt(dx * dx + dy * dy) * EARTH_RADIUS_METERS;
+	}
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Douglas-Peucker simplification: keeps the locations needed so that every dropped location
+ * is within the tolerance of the path through the kept ones.
+ */
+public class DouglasPeuckerSimplifier implements TrajectorySimplifier {
+	private final double toleranceMeters;
+
+	/**
+	 * @param toleranceMeters Maximum distance between a dropped location and the simplified path
+	 */
+	public DouglasPeuckerSimplifier(double toleranceMeters) {
+		this.toleranceMeters = toleranceMeters;
+	}
+
+	@Override
+	public List<VisitedLocation> simplify(List<VisitedLocation> trajectory) {
+		int size = trajectory.size();
+		if (size <= 2) {
+			return trajectory;
+		}
+		BitSet kept = new BitSet(size);
+		kept.set(0);
+		kept.set(size - 1);
+		// iterative, so that long trajectories cannot overflow the stack
+		Deque<int[]> ranges = new ArrayDeque<>();
+		ranges.push(new int[] { 0, size - 1 });
+		while (!ranges.isEmpty()) {
+			int[] range = ranges.pop();
+			int start = range[0];
+			int end = range[1];
+			double farthestDistance = -1;
+			int farthest = -1;
+			for (int i = start + 1; i < end; i++) {
+				double distance = Distances.toSegment(trajectory.get(i).location,
+						trajectory.get(start).location, trajectory.get(end).location);
+				if (distance > farthestDistance) {
+					farthestDistance = distance;
+					farthest = i;
+				}
+			}
+			if (farthestDistance > toleranceMeters) {
+				kept.set(farthest);
+				ranges.push(new int[] { start, farthest });
+				ranges.push(new int[] { farthest, end });
+			}
+		}
+
+		List<VisitedLocation> simplified = new ArrayList<>(kept.cardinality());
+		for (int i = kept.nextSetBit(0); i >= 0; i = kept.nextSetBit(i + 1)) {
+			simplified.add(trajectory.get(i));
+		}
+		return simplified;
+	}
+}
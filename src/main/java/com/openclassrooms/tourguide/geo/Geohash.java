@@ -0,0 +1,105 @@
+package com.openclassrooms.tourguide.geo;
+
+/**
+ * Geohash encoding: a location is turned into a short string naming the cell of a grid
+ * that contains it. Each extra character divides the cell into 32, so locations sharing a
+ * prefix are close to each other (5 characters: cells of about 5 km x 5 km).
+ */
+public final class Geohash {
+	private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+	private Geohash() {
+	}
+
+	/**
+	 * Encodes a location.
+	 *
+	 * @param latitude Latitude in degrees
+	 * @param longitude Longitude in degrees
+	 * @param precision Number of characters of the geohash
+	 * @return The geohash of the cell containing the location
+	 */
+	public static String encode(double latitude, double longitude, int precision) {
+		double minLatitude = -90;
+		double maxLatitude = 90;
+		double minLongitude = -180;
+		double maxLongitude = 180;
+		char[] hash = new char[precision];
+		boolean longitudeBit = true;
+		for (int i = 0; i < precision; i++) {
+			int index = 0;
+			for (int bit = 0; bit < 5; bit++) {
+				index <<= 1;
+				if (longitudeBit) {
+					double middle = (minLongitude + maxLongitude) / 2;
+					if (longitude >= middle) {
+						index |= 1;
+						minLongitude = middle;
+					} else {
+						maxLongitude = middle;
+					}
+				} else {
+					double middle = (minLatitude + maxLatitude) / 2;
+					if (latitude >= middle) {
+						index |= 1;
+						minLatitude = middle;
+					} else {
+						maxLatitude = middle;
+					}
+				}
+				longitudeBit = !longitudeBit;
+			}
+			hash[i] = BASE32[index];
+		}
+		return new String(hash);
+	}
+
+	/**
+	 * Decodes the cell named by a geohash.
+	 *
+	 * @param hash The geohash
+	 * @return The bounds of the cell
+	 */
+	public static BoundingBox bounds(String hash) {
+		double minLatitude = -90;
+		double maxLatitude = 90;
+		double minLongitude = -180;
+		double maxLongitude = 180;
+		boolean longitudeBit = true;
+		for (char character : hash.toCharArray()) {
+			int index = indexOf(character);
+			if (index < 0) {
+				throw new IllegalArgumentException("Invalid geohash: " + hash);
+			}
+			for (int bit = 4; bit >= 0; bit--) {
+				boolean high = (index >> bit & 1) == 1;
+				if (longitudeBit) {
+					double middle = (minLongitude + maxLongitude) / 2;
+					if (high) {
+						minLongitude = middle;
+					} else {
+						maxLongitude = middle;
+					}
+				} else {
+					double middle = (minLatitude + maxLatitude) / 2;
+					if (high) {
+						minLatitude = middle;
+					} else {
+						maxLatitude = middle;
+					}
+				}
+				longitudeBit = !longitudeBit;
+			}
+		}
+		return new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+	}
+
+	private static int indexOf(char character) {
+		for (int i = 0; i < BASE32.length; i++) {
+			if (BASE32[i] == character) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
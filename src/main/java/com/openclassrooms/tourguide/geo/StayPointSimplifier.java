@@ -0,0 +1,47 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Stay point reduction: when a user stays within a radius for long enough, only the arrival
+ * and the departure locations of the stay are kept. Movements between stays are kept as is.
+ */
+public class StayPointSimplifier implements TrajectorySimplifier {
+	private final double radiusMeters;
+	private final long minStayMillis;
+
+	/**
+	 * @param radiusMeters Maximum distance from the arrival location during a stay
+	 * @param minStayMillis Minimum duration of a stay
+	 */
+	public StayPointSimplifier(double radiusMeters, long minStayMillis) {
+		this.radiusMeters = radiusMeters;
+		this.minStayMillis = minStayMillis;
+	}
+
+	@Override
+	public List<VisitedLocation> simplify(List<VisitedLocation> trajectory) {
+		List<VisitedLocation> simplified = new ArrayList<>();
+		int arrival = 0;
+		while (arrival < trajectory.size()) {
+			VisitedLocation anchor = trajectory.get(arrival);
+			int departure = arrival;
+			while (departure + 1 < trajectory.size()
+					&& Distances.between(anchor.location, trajectory.get(departure + 1).location) <= radiusMeters) {
+				departure++;
+			}
+			simplified.add(anchor);
+			long stay = trajectory.get(departure).timeVisited.getTime() - anchor.timeVisited.getTime();
+			if (departure > arrival && stay >= minStayMillis) {
+				simplified.add(trajectory.get(departure));
+				arrival = departure + 1;
+			} else {
+				arrival++;
+			}
+		}
+		return simplified;
+	}
+}
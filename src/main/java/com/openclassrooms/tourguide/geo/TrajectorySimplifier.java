@@ -0,0 +1,45 @@
+package com.openclassrooms.tourguide.geo;
+
+import java.util.List;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Reduces a trajectory, a time-ordered list of visited locations, to fewer locations.
+ * The first and the last locations are always kept.
+ */
+public interface TrajectorySimplifier {
+
+	/**
+	 * @param trajectory The locations, oldest first
+	 * @return The kept locations, oldest first
+	 */
+	List<VisitedLocation> simplify(List<VisitedLocation> trajectory);
+
+	/**
+	 * Builds a simplifier from its textual form:
+	 * <ul>
+	 * <li>{@code douglas-peucker:50}: drops the locations within 50 m of the simplified path</li>
+	 * <li>{@code stay-points:100,1200}: collapses the stays of at least 1200 s within 100 m
+	 * into their arrival and departure locations</li>
+	 * </ul>
+	 *
+	 * @param specification The simplifier specification
+	 * @return The simplifier
+	 */
+	static TrajectorySimplifier parse(String specification) {
+		String spec = specification.trim();
+		int separator = spec.indexOf(':');
+		String type = separator < 0 ? spec : spec.substring(0, separator);
+		String arguments = separator < 0 ? "" : spec.substring(separator + 1).trim();
+		return switch (type) {
+			case "douglas-peucker" -> new DouglasPeuckerSimplifier(Double.parseDouble(arguments));
+			case "stay-points" -> {
+				String[] parameters = arguments.split(",");
+				yield new StayPointSimplifier(Double.parseDouble(parameters[0].trim()),
+						Long.parseLong(parameters[1].trim()) * 1000);
+			}
+			default -> throw new IllegalArgumentException("Unknown trajectory simplifier: " + specification);
+		};
+	}
+}
@@ -1,9 +1,20 @@
 package com.openclassrooms.tourguide.helper;
 
+import java.time.Instant;
+
 public class InternalTestHelper {
 
 	// Set this default up to 100,000 for testing
 	private static int internalUserNumber = 100;
+
+	// Same seed, same users: ids, locations and timestamps are reproducible across runs
+	private static long internalUserSeed = 42L;
+
+	// Visit times are drawn in the 30 days before this instant rather than before now, for the same reason
+	private static Instant internalUserReferenceTime = Instant.parse("2024-01-01T00:00:00Z");
+
+	// When enabled, internal users are only generated when first accessed
+	private static boolean lazyInternalUsers = false;
 	
 	public static void setInternalUserNumber(int internalUserNumber) {
 		InternalTestHelper.internalUserNumber = internalUserNumber;
@@ -12,4 +23,28 @@ public class InternalTestHelper {
 	public static int getInternalUserNumber() {
 		return internalUserNumber;
 	}
+
+	public static void setInternalUserSeed(long internalUserSeed) {
+		InternalTestHelper.internalUserSeed = internalUserSeed;
+	}
+
+	public static long getInternalUserSeed() {
+		return internalUserSeed;
+	}
+
+	public static void setInternalUserReferenceTime(Instant internalUserReferenceTime) {
+		InternalTestHelper.internalUserReferenceTime = internalUserReferenceTime;
+	}
+
+	public static Instant getInternalUserReferenceTime() {
+		return internalUserReferenceTime;
+	}
+
+	public static void setLazyInternalUsers(boolean lazyInternalUsers) {
+		InternalTestHelper.lazyInternalUsers = lazyInternalUsers;
+	}
+
+	public static boolean isLazyInternalUsers() {
+		return lazyInternalUsers;
+	}
 }
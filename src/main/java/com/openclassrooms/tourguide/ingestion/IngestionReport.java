@@ -0,0 +1,16 @@
+package com.openclassrooms.tourguide.ingestion;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingestion.
+ *
+ * @param accepted Number of users added
+ * @param duplicates Number of users already present with the same id, left untouched
+ * @param rejected Number of invalid records, or users whose name belongs to another id
+ * @param errors Reasons of the first rejections, with their line numbers
+ * @param durationMillis Duration of the ingestion
+ */
+public record IngestionReport(long accepted, long duplicates, long rejected, List<String> errors,
+		long durationMillis) {
+}
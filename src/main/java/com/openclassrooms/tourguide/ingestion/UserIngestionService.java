@@ -0,0 +1,324 @@
+package com.openclassrooms.tourguide.ingestion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Bulk ingestion of users and their location histories.
+ *
+ * The calling thread reads the payload one line at a time and hands the lines over by
+ * batches to a dedicated pool, which parses, validates and inserts them in parallel, JSON
+ * parsing being the costliest step. The calling thread waits once too many batches are
+ * pending, so that a large payload is never held in memory and a slow pool slows the
+ * client down. Ingestion is idempotent: a user already present with the same id is counted
+ * as a duplicate and left untouched.
+ *
+ * Two formats are read:
+ * <ul>
+ * <li>NDJSON: one {@link UserRecord} per line</li>
+ * <li>CSV: the header {@value #CSV_HEADER} then one row per visited location, the rows of a
+ * user being consecutive; a user without history has a single row with empty location
+ * columns. Fields are not quoted and cannot contain commas.</li>
+ * </ul>
+ */
+public class UserIngestionService {
+	public static final String CSV_HEADER = "userId,userName,phoneNumber,emailAddress,latitude,longitude,timeVisited";
+	static final int MAX_REPORTED_ERRORS = 100;
+
+	private Logger logger = LoggerFactory.getLogger(UserIngestionService.class);
+	private final TourGuideService tourGuideService;
+	private final int batchSize;
+	private final int maxPendingBatches;
+	private final ExecutorService pool;
+	private final ObjectReader userRecordReader = new ObjectMapper()
+			.registerModule(new JavaTimeModule())
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.readerFor(UserRecord.class);
+
+	/**
+	 * @param tourGuideService The service receiving the users
+	 * @param threads Size of the insertion pool
+	 * @param batchSize Number of users per batch
+	 */
+	public UserIngestionService(TourGuideService tourGuideService, int threads, int batchSize) {
+		this.tourGuideService = tourGuideService;
+		this.batchSize = batchSize;
+		this.maxPendingBatches = threads * 2;
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "user-ingestion-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Ingests users from NDJSON, one user per line.
+	 *
+	 * @param input The payload, read up to its end
+	 * @return The counts of accepted, duplicate and rejected users
+	 */
+	public IngestionReport ingestNdjson(InputStream input) throws IOException {
+		Ingestion ingestion = new Ingestion();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		long lineNumber = 0;
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			lineNumber++;
+			if (line.isBlank()) {
+				continue;
+			}
+			ingestion.add(new PendingRecord(lineNumber, line, null));
+		}
+		return ingestion.finish();
+	}
+
+	/**
+	 * Ingests users from CSV, one visited location per row.
+	 *
+	 * @param input The payload, read up to its end
+	 * @return The counts of accepted, duplicate and rejected users
+	 */
+	public IngestionReport ingestCsv(InputStream input) throws IOException {
+		Ingestion ingestion = new Ingestion();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+		String header = reader.readLine();
+		if (header == null || !header.strip().equals(CSV_HEADER)) {
+			throw new IllegalArgumentException("CSV header must be " + CSV_HEADER);
+		}
+		CsvUser current = null;
+		long lineNumber = 1;
+		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+			lineNumber++;
+			if (line.isBlank()) {
+				continue;
+			}
+			String[] fields = line.split(",", -1);
+			if (fields.length != 7) {
+				ingestion.reject(lineNumber, "expected 7 fields, found " + fields.length);
+				continue;
+			}
+			if (current == null || !current.userId.equals(fields[0])) {
+				if (current != null) {
+					current.emit(ingestion);
+				}
+				current = new CsvUser(lineNumber, fields);
+			}
+			current.addLocation(fields);
+		}
+		if (current != null) {
+			current.emit(ingestion);
+		}
+		return ingestion.finish();
+	}
+
+	/**
+	 * Ingests users from any source.
+	 *
+	 * @param records The users, consumed as they are inserted
+	 * @return The counts of accepted, duplicate and rejected users
+	 */
+	public IngestionReport ingest(Iterator<UserRecord> records) {
+		Ingestion ingestion = new Ingestion();
+		for (long number = 1; records.hasNext(); number++) {
+			ingestion.add(new PendingRecord(number, null, records.next()));
+		}
+		return ingestion.finish();
+	}
+
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Builds the user of a record.
+	 *
+	 * @throws IllegalArgumentException if the record is invalid
+	 */
+	static User toUser(UserRecord record) {
+		if (record.userId() == null) {
+			throw new IllegalArgumentException("userId is missing");
+		}
+		UUID userId = UUID.fromString(record.userId());
+		if (record.userName() == null || record.userName().isBlank()) {
+			throw new IllegalArgumentException("userName is missing");
+		}
+		User user = new User(userId, record.userName(), record.phoneNumber(), record.emailAddress());
+		if (record.visitedLocations() != null) {
+			for (UserRecord.LocationRecord location : record.visitedLocations()) {
+				if (location == null || location.timeVisited() == null) {
+					throw new IllegalArgumentException("timeVisited is missing");
+				}
+				if (!(Math.abs(location.latitude()) <= 90 && Math.abs(location.longitude()) <= 180)) {
+					throw new IllegalArgumentException("location out of range: " + location.latitude() + ","
+							+ location.longitude());
+				}
+			}
+			// in time order, each location is appended to the history without reordering
+			record.visitedLocations().stream()
+					.sorted(Comparator.comparing(UserRecord.LocationRecord::timeVisited))
+					.forEach(location -> user.addToVisitedLocations(new VisitedLocation(userId,
+							new Location(location.latitude(), location.longitude()),
+							Date.from(location.timeVisited()))));
+		}
+		return user;
+	}
+
+	/**
+	 * Counters and pending batches of one ingestion.
+	 */
+	private class Ingestion {
+		private final long start = System.currentTimeMillis();
+		private final AtomicLong accepted = new AtomicLong();
+		private final AtomicLong duplicates = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final List<String> errors = new ArrayList<>();
+		private final Semaphore pendingBatches = new Semaphore(maxPendingBatches);
+		private List<PendingRecord> batch = new ArrayList<>(batchSize);
+
+		void add(PendingRecord record) {
+			batch.add(record);
+			if (batch.size() >= batchSize) {
+				submit();
+			}
+		}
+
+		void reject(long lineNumber, String reason) {
+			rejected.incrementAndGet();
+			synchronized (errors) {
+				if (errors.size() < MAX_REPORTED_ERRORS) {
+					errors.add("line " + lineNumber + ": " + reason);
+				}
+			}
+		}
+
+		IngestionReport finish() {
+			submit();
+			pendingBatches.acquireUninterruptibly(maxPendingBatches);
+			IngestionReport report;
+			synchronized (errors) {
+				report = new IngestionReport(accepted.get(), duplicates.get(), rejected.get(), List.copyOf(errors),
+						System.currentTimeMillis() - start);
+			}
+			logger.info("Ingested " + report.accepted() + " users, " + report.duplicates() + " duplicates, "
+					+ report.rejected() + " rejected in " + report.durationMillis() + " ms");
+			return report;
+		}
+
+		private void submit() {
+			if (batch.isEmpty()) {
+				return;
+			}
+			List<PendingRecord> records = batch;
+			batch = new ArrayList<>(batchSize);
+			pendingBatches.acquireUninterruptibly();
+			try {
+				pool.execute(() -> {
+					try {
+						records.forEach(this::insert);
+					} finally {
+						pendingBatches.release();
+					}
+				});
+			} catch (RuntimeException e) {
+				pendingBatches.release();
+				throw e;
+			}
+		}
+
+		private void insert(PendingRecord pending) {
+			User user;
+			try {
+				user = toUser(pending.json() != null ? userRecordReader.readValue(pending.json()) : pending.record());
+			} catch (JsonProcessingException e) {
+				reject(pending.lineNumber(), "malformed JSON: " + e.getOriginalMessage());
+				return;
+			} catch (IllegalArgumentException | DateTimeParseException e) {
+				reject(pending.lineNumber(), e.getMessage());
+				return;
+			}
+			User existing = tourGuideService.addUserIfAbsent(user);
+			if (existing == null) {
+				accepted.incrementAndGet();
+			} else if (existing.getUserId().equals(user.getUserId())) {
+				// same id, whatever the name
+				duplicates.incrementAndGet();
+			} else {
+				reject(pending.lineNumber(), "userName " + user.getUserName() + " belongs to another user");
+			}
+		}
+	}
+
+	/**
+	 * A record waiting for its batch, either still as a JSON line or already parsed.
+	 */
+	private record PendingRecord(long lineNumber, String json, UserRecord record) {
+	}
+
+	/**
+	 * Rows of the user being read from CSV.
+	 */
+	private static class CsvUser {
+		private final long lineNumber;
+		private final String userId;
+		private final String[] fields;
+		private final List<UserRecord.LocationRecord> locations = new ArrayList<>();
+		private String error;
+
+		CsvUser(long lineNumber, String[] fields) {
+			this.lineNumber = lineNumber;
+			this.userId = fields[0];
+			this.fields = fields;
+		}
+
+		void addLocation(String[] row) {
+			if (error != null || (row[4].isEmpty() && row[5].isEmpty() && row[6].isEmpty())) {
+				return;
+			}
+			try {
+				locations.add(new UserRecord.LocationRecord(Double.parseDouble(row[4]), Double.parseDouble(row[5]),
+						Instant.parse(row[6])));
+			} catch (NumberFormatException | DateTimeParseException e) {
+				error = "invalid location: " + e.getMessage();
+			}
+		}
+
+		void emit(Ingestion ingestion) {
+			if (error != null) {
+				ingestion.reject(lineNumber, error);
+			} else {
+				ingestion.add(new PendingRecord(lineNumber, null,
+						new UserRecord(userId, fields[1], fields[2], fields[3], locations)));
+			}
+		}
+	}
+}
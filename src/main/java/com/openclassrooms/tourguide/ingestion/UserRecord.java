@@ -0,0 +1,30 @@
+package com.openclassrooms.tourguide.ingestion;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A user as ingested, one NDJSON line or a group of CSV rows.
+ *
+ * @param userId Identifier of the user, ingesting the same id twice is a no-op
+ * @param userName Unique user name
+ * @param phoneNumber Phone number
+ * @param emailAddress Email address
+ * @param visitedLocations Location history, in any order
+ */
+public record UserRecord(
+		String userId,
+		String userName,
+		String phoneNumber,
+		String emailAddress,
+		List<LocationRecord> visitedLocations
+) {
+
+	/**
+	 * @param latitude Latitude in degrees
+	 * @param longitude Longitude in degrees
+	 * @param timeVisited When the location was visited
+	 */
+	public record LocationRecord(double latitude, double longitude, Instant timeVisited) {
+	}
+}
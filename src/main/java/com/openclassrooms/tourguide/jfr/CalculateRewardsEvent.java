@@ -0,0 +1,31 @@
+package com.openclassrooms.tourguide.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reward calculation of one user, with the size of the scan and the rewards it granted.
+ */
+@Name("tourguide.CalculateRewards")
+@Label("Calculate Rewards")
+@Category({ "TourGuide", "Rewards" })
+@Description("Scan of the visited locations of a user against the attractions")
+@StackTrace(false)
+public class CalculateRewardsEvent extends Event {
+
+	@Label("User Name")
+	public String userName;
+
+	@Label("Visited Locations")
+	public int locations;
+
+	@Label("Attractions")
+	public int attractions;
+
+	@Label("New Rewards")
+	public int hits;
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.tourguide.jfr;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Actuator endpoint driving a Java Flight Recorder recording of the running application,
+ * with the TourGuide events and the JDK events of the chosen settings:
+ * <ul>
+ * <li>{@code POST /actuator/jfr} starts a recording, bounded in duration and size</li>
+ * <li>{@code GET /actuator/jfr} describes the current recording</li>
+ * <li>{@code GET /actuator/jfr/dump} downloads what was recorded so far, as a .jfr file</li>
+ * <li>{@code DELETE /actuator/jfr} stops and discards the recording</li>
+ * </ul>
+ */
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+	private Logger logger = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+	private final Duration maxDuration;
+	private final long maxSizeBytes;
+	private Recording recording;
+	private Path lastDump;
+
+	/**
+	 * @param maxDuration Longest recording that can be requested
+	 * @param maxSizeBytes Largest amount of data a recording can keep
+	 */
+	public FlightRecorderEndpoint(Duration maxDuration, long maxSizeBytes) {
+		this.maxDuration = maxDuration;
+		this.maxSizeBytes = maxSizeBytes;
+	}
+
+	/**
+	 * Starts a recording, replacing the previous one.
+	 *
+	 * @param duration How long to record, capped to the maximum duration
+	 * @param settings JDK settings to record with: default (about 1% overhead) or profile
+	 * @return The description of the recording
+	 */
+	@WriteOperation
+	public synchronized Map<String, Object> start(@Nullable Duration duration, @Nullable String settings) {
+		Configuration configuration;
+		try {
+			configuration = Configuration.getConfiguration(settings == null ? "default" : settings);
+		} catch (IOException | ParseException e) {
+			throw new IllegalArgumentException("Unknown JFR settings: " + settings, e);
+		}
+		closeRecording();
+		recording = new Recording(configuration);
+		recording.setName("tourguide");
+		recording.enable(TrackLocationEvent.class);
+		recording.enable(CalculateRewardsEvent.class);
+		recording.enable(UpstreamCallEvent.class);
+		recording.enable(TrackerCycleEvent.class);
+		recording.setDuration(duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+		recording.setMaxSize(maxSizeBytes);
+		recording.setToDisk(true);
+		recording.start();
+		logger.info("JFR recording started for " + recording.getDuration().toSeconds() + " seconds");
+		return status();
+	}
+
+	/**
+	 * @return The description of the current recording
+	 */
+	@ReadOperation
+	public synchronized Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		if (recording == null) {
+			status.put("state", "NONE");
+			return status;
+		}
+		status.put("state", recording.getState());
+		status.put("startTime", recording.getStartTime());
+		status.put("duration", recording.getDuration());
+		status.put("maxSizeBytes", recording.getMaxSize());
+		status.put("sizeBytes", recording.getSize());
+		return status;
+	}
+
+	/**
+	 * Writes what was recorded so far to a file, which is streamed back.
+	 *
+	 * @param name Must be dump
+	 * @return The recording file, or null (404) when there is nothing to dump
+	 */
+	@ReadOperation(produces = "application/octet-stream")
+	public synchronized Resource dump(@Selector String name) {
+		if (!"dump".equals(name) || recording == null
+				|| (recording.getState() != RecordingState.RUNNING && recording.getState() != RecordingState.STOPPED)) {
+			return null;
+		}
+		try {
+			deleteLastDump();
+			lastDump = Files.createTempFile("tourguide-", ".jfr");
+			recording.dump(lastDump);
+			return new FileSystemResource(lastDump);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot dump JFR recording", e);
+		}
+	}
+
+	/**
+	 * Stops and discards the current recording.
+	 */
+	@DeleteOperation
+	public synchronized void stop() {
+		closeRecording();
+		deleteLastDump();
+	}
+
+	private void closeRecording() {
+		if (recording != null) {
+			recording.close();
+			recording = null;
+		}
+	}
+
+	private void deleteLastDump() {
+		if (lastDump != null) {
+			try {
+				Files.deleteIfExists(lastDump);
+			} catch (IOException e) {
+				logger.warn("Cannot delete JFR dump " + lastDump + ": " + e.getMessage());
+			}
+			lastDump = null;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Tracking of one user: from the request of the location until it is recorded, including
+ * the time spent waiting for a tracking thread.
+ */
+@Name("tourguide.TrackLocation")
+@Label("Track User Location")
+@Category({ "TourGuide", "Tracking" })
+@Description("Location of a user fetched from gpsUtil and recorded")
+@StackTrace(false)
+public class TrackLocationEvent extends Event {
+
+	@Label("User Name")
+	public String userName;
+
+	@Label("Latitude")
+	public double latitude;
+
+	@Label("Longitude")
+	public double longitude;
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One pass of the tracker over the users owned by this node.
+ */
+@Name("tourguide.TrackerCycle")
+@Label("Tracker Cycle")
+@Category({ "TourGuide", "Tracking" })
+@Description("Tracking of every user owned by this node")
+public class TrackerCycleEvent extends Event {
+
+	@Label("Users")
+	public int users;
+
+	@Label("Chunks")
+	public int chunks;
+
+	@Label("Failed Chunks")
+	public int failedChunks;
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.tourguide.jfr;
+
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Call to one of the gpsUtil, RewardCentral or TripPricer libraries.
+ */
+@Name("tourguide.UpstreamCall")
+@Label("Upstream Call")
+@Category({ "TourGuide", "Upstream" })
+@Description("Call to gpsUtil, RewardCentral or TripPricer")
+@StackTrace(false)
+public class UpstreamCallEvent extends Event {
+
+	@Label("Upstream")
+	public String upstream;
+
+	@Label("Operation")
+	public String operation;
+
+	@Label("Succeeded")
+	public boolean succeeded;
+
+	/**
+	 * Runs an upstream call, recording its duration and outcome.
+	 *
+	 * @param upstream Name of the upstream service
+	 * @param operation Name of the called method
+	 * @param call The call
+	 * @return The result of the call
+	 */
+	public static <T> T record(String upstream, String operation, Supplier<T> call) {
+		UpstreamCallEvent event = new UpstreamCallEvent();
+		event.begin();
+		boolean succeeded = false;
+		try {
+			T result = call.get();
+			succeeded = true;
+			return result;
+		} finally {
+			if (event.shouldCommit()) {
+				event.upstream = upstream;
+				event.operation = operation;
+				event.succeeded = succeeded;
+				event.commit();
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.openclassrooms.tourguide.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.openclassrooms.tourguide.service.RewardListener;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Reward points leaderboard kept up to date as rewards are granted, instead of summing the
+ * rewards of every user on each query.
+ *
+ * Users are ordered by points in a concurrent skip list, which answers the top N in
+ * O(log users + N). Ranks and percentiles are counted in a histogram of the totals, in
+ * O(log maxPoints). Only users who earned points are ranked.
+ */
+public class Leaderboard implements RewardListener {
+	public static final int MAX_TOP = 1000;
+
+	private static final Comparator<Ranking> BY_POINTS_DESCENDING = Comparator.comparingInt(Ranking::points)
+			.reversed()
+			.thenComparing(Ranking::userName)
+			.thenComparing(Ranking::userId);
+
+	private final NavigableSet<Ranking> rankings = new ConcurrentSkipListSet<>(BY_POINTS_DESCENDING);
+	private final Map<UUID, Ranking> rankingByUser = new ConcurrentHashMap<>();
+	private final PointsHistogram histogram = new PointsHistogram();
+	private final ReadWriteLock histogramLock = new ReentrantReadWriteLock();
+
+	@Override
+	public void onRewardGranted(User user, UserReward reward) {
+		update(user);
+	}
+
+	/**
+	 * Sets the points of a user to the total of its rewards. Updates of one user must not run
+	 * concurrently, rewards being granted on the lane of the user.
+	 *
+	 * @param user The user
+	 */
+	public void update(User user) {
+		int points = user.getRewardPoints();
+		Ranking previous = rankingByUser.get(user.getUserId());
+		if (points == (previous == null ? 0 : previous.points())) {
+			return;
+		}
+		Ranking ranking = new Ranking(user.getUserId(), user.getUserName(), points);
+		histogramLock.writeLock().lock();
+		try {
+			if (previous != null) {
+				histogram.add(previous.points(), -1);
+			}
+			histogram.add(points, 1);
+		} finally {
+			histogramLock.writeLock().unlock();
+		}
+		rankings.add(ranking);
+		rankingByUser.put(user.getUserId(), ranking);
+		if (previous != null) {
+			rankings.remove(previous);
+		}
+	}
+
+	/**
+	 * @param limit Maximum number of users, capped to {@link #MAX_TOP}
+	 * @return The users with the most points, best first
+	 */
+	public List<LeaderboardEntry> getTop(int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+		}
+		limit = Math.min(limit, MAX_TOP);
+		List<LeaderboardEntry> top = new ArrayList<>(limit);
+		for (Ranking ranking : rankings) {
+			if (top.size() >= limit) {
+				break;
+			}
+			// skips the previous ranking of a user being updated
+			if (rankingByUser.get(ranking.userId()) == ranking) {
+				top.add(entry(ranking.userName(), ranking.points()));
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * @param user The user
+	 * @return The rank and percentile of the user
+	 */
+	public LeaderboardEntry getStanding(User user) {
+		Ranking ranking = rankingByUser.get(user.getUserId());
+		return entry(user.getUserName(), ranking == null ? 0 : ranking.points());
+	}
+
+	/**
+	 * @param percentile Share of the ranked users, from 0 (excluded) to 100
+	 * @return The fewest points earned by the best ranked users making up that share, 0 if no user is ranked
+	 */
+	public int getPointsAtPercentile(double percentile) {
+		if (!(percentile > 0 && percentile <= 100)) {
+			throw new IllegalArgumentException("Percentile must be in (0, 100]: " + percentile);
+		}
+		histogramLock.readLock().lock();
+		try {
+			long users = histogram.total();
+			if (users == 0) {
+				return 0;
+			}
+			long best = (long) Math.ceil(users * percentile / 100);
+			return histogram.pointsAt(users - best + 1);
+		} finally {
+			histogramLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The number of users with points
+	 */
+	public long getRankedUserCount() {
+		histogramLock.readLock().lock();
+		try {
+			return histogram.total();
+		} finally {
+			histogramLock.readLock().unlock();
+		}
+	}
+
+	private LeaderboardEntry entry(String userName, int points) {
+		histogramLock.readLock().lock();
+		try {
+			long users = histogram.total();
+			if (points == 0) {
+				return new LeaderboardEntry(userName, 0, users + 1, 0);
+			}
+			long below = histogram.countBelow(points);
+			long above = users - histogram.countBelow(points + 1);
+			return new LeaderboardEntry(userName, points, above + 1, below * 100.0 / users);
+		} finally {
+			histogramLock.readLock().unlock();
+		}
+	}
+
+	private record Ranking(UUID userId, String userName, int points) {
+	}
+}
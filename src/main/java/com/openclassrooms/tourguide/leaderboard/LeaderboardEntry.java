@@ -0,0 +1,17 @@
+package com.openclassrooms.tourguide.leaderboard;
+
+/**
+ * Standing of a user on the reward points leaderboard.
+ *
+ * @param userName The user
+ * @param rewardPoints Total reward points of the user
+ * @param rank 1 plus the number of users with more points, users without points ranking last
+ * @param percentile Share of the ranked users with fewer points, from 0 to 100
+ */
+public record LeaderboardEntry(
+		String userName,
+		int rewardPoints,
+		long rank,
+		double percentile
+) {
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.tourguide.leaderboard;
+
+import java.util.Arrays;
+
+/**
+ * Number of users per reward points total, as a Fenwick tree: counting the users below a
+ * total and finding the total of the k-th user both take O(log maxPoints). Not thread safe.
+ */
+class PointsHistogram {
+	// counts[i] covers the totals (i - lowbit(i), i], totals being shifted by one so that 0 fits
+	private long[] counts = new long[1024];
+	private long total;
+
+	void add(int points, long delta) {
+		int index = points + 1;
+		if (index >= counts.length) {
+			grow(index);
+		}
+		for (; index < counts.length; index += index & -index) {
+			counts[index] += delta;
+		}
+		total += delta;
+	}
+
+	/**
+	 * @return The number of users with strictly less than the given points
+	 */
+	long countBelow(int points) {
+		long count = 0;
+		for (int index = Math.min(points, counts.length - 1); index > 0; index -= index & -index) {
+			count += counts[index];
+		}
+		return count;
+	}
+
+	/**
+	 * @param k Position of a user in ascending order of points, from 1 to {@link #total()}
+	 * @return The points of that user
+	 */
+	int pointsAt(long k) {
+		int index = 0;
+		for (int step = Integer.highestOneBit(counts.length - 1); step > 0; step >>= 1) {
+			int next = index + step;
+			if (next < counts.length && counts[next] < k) {
+				index = next;
+				k -= counts[next];
+			}
+		}
+		// index + 1 is the first shifted total reaching k
+		return index;
+	}
+
+	long total() {
+		return total;
+	}
+
+	private void grow(int index) {
+		int length = counts.length;
+		long[] grown = Arrays.copyOf(counts, Integer.highestOneBit(index) << 1);
+		// the new nodes above the old length cover ranges starting inside the old array
+		for (int i = length; i < grown.length; i++) {
+			int lowest = i - (i & -i);
+			if (lowest < length - 1) {
+				grown[i] = prefix(counts, Math.min(i, length - 1)) - prefix(counts, lowest);
+			}
+		}
+		counts = grown;
+	}
+
+	private static long prefix(long[] counts, int index) {
+		long sum = 0;
+		for (; index > 0; index -= index & -index) {
+			sum += counts[index];
+		}
+		return sum;
+	}
+}
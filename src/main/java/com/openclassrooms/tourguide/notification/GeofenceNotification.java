@@ -0,0 +1,13 @@
+package com.openclassrooms.tourguide.notification;
+
+/**
+ * Pushed when a tracked location places a user within the reward radius of an attraction.
+ */
+public record GeofenceNotification(
+		String attractionName,
+		double attractionLatitude,
+		double attractionLongitude,
+		double userLatitude,
+		double userLongitude,
+		double distance) {
+}
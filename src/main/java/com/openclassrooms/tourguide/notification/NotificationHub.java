@@ -0,0 +1,311 @@
+package com.openclassrooms.tourguide.notification;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.event.LocationEventHandler;
+import com.openclassrooms.tourguide.service.RewardListener;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Pushes geofence and reward notifications to the users subscribed over Server-Sent Events.
+ *
+ * Subscribers hold no thread while idle: the servlet container parks their connection. The
+ * threads producing notifications, the location bus consumer and the user lanes, only queue
+ * them in the mailbox of the subscribed user; a small fan-out pool drains each mailbox in
+ * order. Users without subscribers cost a map lookup.
+ *
+ * Writes are blocking, so a client that stops reading would hold a fan-out thread and, with
+ * a few others, starve every subscriber. A subscription is therefore closed when its mailbox
+ * overflows or when a write to it lasts longer than the write timeout: the writing thread is
+ * interrupted and goes back to the other mailboxes. Closed clients reconnect as after the
+ * stream timeout.
+ */
+public class NotificationHub implements LocationEventHandler, RewardListener {
+	private static final int MAILBOX_CAPACITY = 1000;
+
+	private Logger logger = LoggerFactory.getLogger(NotificationHub.class);
+	private final RewardsService rewardsService;
+	private final AttractionCatalog attractionCatalog;
+	private final long timeoutMillis;
+	private final Map<UUID, Subscription> subscriptions = new ConcurrentHashMap<>();
+	private final ExecutorService fanOut;
+	private final ScheduledExecutorService heartbeat;
+	private final long writeTimeoutNanos;
+
+	/**
+	 * @param rewardsService The service deciding whether a location is within an attraction's radius
+	 * @param attractionCatalog The attractions, refreshed off the bus consumer thread
+	 * @param timeout Lifetime of a subscription, after which the client reconnects
+	 * @param heartbeatInterval Delay between the comments keeping idle connections open
+	 * @param fanOutThreads Number of threads writing to the subscribers
+	 * @param writeTimeout Longest write to a subscriber before its subscription is closed
+	 */
+	public NotificationHub(RewardsService rewardsService, AttractionCatalog attractionCatalog, Duration timeout,
+			Duration heartbeatInterval, int fanOutThreads, Duration writeTimeout) {
+		this.rewardsService = rewardsService;
+		this.attractionCatalog = attractionCatalog;
+		this.timeoutMillis = timeout.toMillis();
+		this.writeTimeoutNanos = writeTimeout.toNanos();
+		AtomicInteger threadCount = new AtomicInteger();
+		this.fanOut = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+			Thread thread = new Thread(runnable, "notification-fan-out-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "notification-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInterval.toMillis(),
+				heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+		long stalledCheckMillis = Math.max(1, writeTimeout.toMillis() / 4);
+		heartbeat.scheduleWithFixedDelay(this::closeStalledSubscriptions, stalledCheckMillis, stalledCheckMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Opens a notification stream for a user.
+	 *
+	 * @param user The subscribing user
+	 * @return The emitter to return from the controller
+	 */
+	public SseEmitter subscribe(User user) {
+		SseEmitter emitter = createEmitter(timeoutMillis);
+		UUID userId = user.getUserId();
+		subscriptions.compute(userId, (id, subscription) -> {
+			Subscription updated = subscription == null || subscription.closed ? new Subscription(id) : subscription;
+			updated.emitters.add(emitter);
+			return updated;
+		});
+		Runnable unsubscribe = () -> unsubscribe(userId, emitter);
+		emitter.onCompletion(unsubscribe);
+		emitter.onTimeout(unsubscribe);
+		emitter.onError(error -> unsubscribe.run());
+		return emitter;
+	}
+
+	protected SseEmitter createEmitter(long timeoutMillis) {
+		return new SseEmitter(timeoutMillis);
+	}
+
+	/**
+	 * @return The number of open notification streams
+	 */
+	public int subscriberCount() {
+		return subscriptions.values().stream().mapToInt(subscription -> subscription.emitters.size()).sum();
+	}
+
+	/**
+	 * Notifies the subscribed users who entered the radius of an attraction.
+	 */
+	@Override
+	public void onEvents(List<LocationEvent> events) {
+		// never calls the GPS service: the bus consumer thread serves every handler
+		List<Attraction> attractions = attractionCatalog.getAttractions();
+		if (attractions.isEmpty()) {
+			// not loaded yet: keep the attractions users are in, entering one is notified once loaded
+			return;
+		}
+		for (LocationEvent event : events) {
+			Subscription subscription = subscriptions.get(event.user().getUserId());
+			if (subscription == null) {
+				continue;
+			}
+			notifyGeofences(subscription, event.visitedLocation(), attractions);
+		}
+	}
+
+	@Override
+	public void onRewardGranted(User user, UserReward reward) {
+		Subscription subscription = subscriptions.get(user.getUserId());
+		if (subscription != null) {
+			RewardNotification notification = new RewardNotification(reward.attraction.attractionName,
+					reward.getRewardPoints());
+			enqueue(subscription, () -> SseEmitter.event().name("reward").data(notification));
+		}
+	}
+
+	/**
+	 * Closes every stream and stops the notification threads.
+	 */
+	public void shutdown() {
+		heartbeat.shutdownNow();
+		fanOut.shutdownNow();
+		subscriptions.values().forEach(subscription -> subscription.emitters.forEach(SseEmitter::complete));
+		subscriptions.clear();
+	}
+
+	private void notifyGeofences(Subscription subscription, VisitedLocation visitedLocation, List<Attraction> attractions) {
+		// only the bus consumer thread reads and writes the attractions a user is in
+		Set<String> inside = new HashSet<>();
+		for (Attraction attraction : attractions) {
+			if (rewardsService.nearAttraction(visitedLocation, attraction)) {
+				inside.add(attraction.attractionName);
+				if (!subscription.insideAttractions.contains(attraction.attractionName)) {
+					GeofenceNotification notification = new GeofenceNotification(attraction.attractionName,
+							attraction.latitude, attraction.longitude, visitedLocation.location.latitude,
+							visitedLocation.location.longitude, rewardsService.getDistance(attraction, visitedLocation.location));
+					enqueue(subscription, () -> SseEmitter.event().name("geofence").data(notification));
+				}
+			}
+		}
+		subscription.insideAttractions = inside;
+	}
+
+	private void enqueue(Subscription subscription, Supplier<SseEventBuilder> event) {
+		if (subscription.closed) {
+			return;
+		}
+		if (subscription.pending.incrementAndGet() > MAILBOX_CAPACITY) {
+			// a client this far behind is not reading
+			close(subscription, "mailbox full");
+			return;
+		}
+		subscription.mailbox.add(event);
+		scheduleDrain(subscription);
+	}
+
+	private void scheduleDrain(Subscription subscription) {
+		if (subscription.draining.compareAndSet(false, true)) {
+			fanOut.execute(() -> drain(subscription));
+		}
+	}
+
+	private void drain(Subscription subscription) {
+		do {
+			Supplier<SseEventBuilder> event;
+			while (!subscription.closed && (event = subscription.mailbox.poll()) != null) {
+				subscription.pending.decrementAndGet();
+				send(subscription, event);
+			}
+			if (subscription.closed) {
+				// completed here rather than by the closing thread, which must not wait for a write in progress
+				subscription.mailbox.clear();
+				IOException error = new IOException(subscription.closeReason);
+				subscription.emitters.forEach(emitter -> emitter.completeWithError(error));
+				subscription.draining.set(false);
+				return;
+			}
+			subscription.draining.set(false);
+			// a notification queued, or a close, after the last poll but before the reset is handled here
+		} while ((subscription.closed || !subscription.mailbox.isEmpty())
+				&& subscription.draining.compareAndSet(false, true));
+	}
+
+	private void send(Subscription subscription, Supplier<SseEventBuilder> event) {
+		for (SseEmitter emitter : subscription.emitters) {
+			if (subscription.closed) {
+				return;
+			}
+			subscription.startWrite();
+			try {
+				// builders are single use
+				emitter.send(event.get());
+			} catch (IOException | IllegalStateException e) {
+				// the client went away; the container completes the emitter, which unsubscribes it
+				emitter.completeWithError(e);
+			} finally {
+				subscription.endWrite();
+			}
+		}
+	}
+
+	private void closeStalledSubscriptions() {
+		for (Subscription subscription : subscriptions.values()) {
+			if (subscription.interruptWriteOlderThan(writeTimeoutNanos)) {
+				close(subscription, "write timed out");
+			}
+		}
+	}
+
+	private void close(Subscription subscription, String reason) {
+		subscription.closeReason = reason;
+		subscription.closed = true;
+		subscriptions.remove(subscription.userId, subscription);
+		logger.debug("Closing the notification streams of user {}: {}", subscription.userId, reason);
+		scheduleDrain(subscription);
+	}
+
+	private void sendHeartbeats() {
+		for (Subscription subscription : new ArrayList<>(subscriptions.values())) {
+			enqueue(subscription, () -> SseEmitter.event().comment("heartbeat"));
+		}
+	}
+
+	private void unsubscribe(UUID userId, SseEmitter emitter) {
+		subscriptions.computeIfPresent(userId, (id, subscription) -> {
+			subscription.emitters.remove(emitter);
+			return subscription.emitters.isEmpty() ? null : subscription;
+		});
+	}
+
+	/**
+	 * Open streams of a user, with their pending notifications.
+	 */
+	private static final class Subscription {
+		final UUID userId;
+		final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+		final Queue<Supplier<SseEventBuilder>> mailbox = new ConcurrentLinkedQueue<>();
+		final AtomicInteger pending = new AtomicInteger();
+		final AtomicBoolean draining = new AtomicBoolean();
+		volatile Set<String> insideAttractions = Set.of();
+		volatile boolean closed;
+		volatile String closeReason;
+		private Thread writer;
+		private long writeStartedNanos;
+
+		Subscription(UUID userId) {
+			this.userId = userId;
+		}
+
+		synchronized void startWrite() {
+			writer = Thread.currentThread();
+			writeStartedNanos = System.nanoTime();
+		}
+
+		synchronized void endWrite() {
+			writer = null;
+			// an interrupt aimed at this write must not fail the write to the next subscriber
+			Thread.interrupted();
+		}
+
+		synchronized boolean interruptWriteOlderThan(long timeoutNanos) {
+			if (writer == null || System.nanoTime() - writeStartedNanos < timeoutNanos) {
+				return false;
+			}
+			writer.interrupt();
+			return true;
+		}
+	}
+}
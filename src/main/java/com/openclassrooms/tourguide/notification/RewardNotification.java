@@ -0,0 +1,7 @@
+package com.openclassrooms.tourguide.notification;
+
+/**
+ * Pushed when a user is granted a new reward.
+ */
+public record RewardNotification(String attractionName, int rewardPoints) {
+}
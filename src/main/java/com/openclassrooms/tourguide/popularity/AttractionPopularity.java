@@ -0,0 +1,142 @@
+package com.openclassrooms.tourguide.popularity;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import gpsUtil.location.Attraction;
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.event.LocationEventHandler;
+import com.openclassrooms.tourguide.popularity.SlidingWindowCounter.Window;
+import com.openclassrooms.tourguide.service.RewardListener;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Per attraction counts of visits, rewards granted and nearby-attraction appearances over
+ * the last minute, hour and day.
+ *
+ * Visits are the tracked locations within the reward proximity of an attraction, checked on
+ * the location event bus rather than during reward calculation, against the attractions of
+ * the catalog so that the bus consumer thread never calls the GPS service. Granted rewards and nearby
+ * appearances only cost a few {@link java.util.concurrent.atomic.LongAdder} increments on the
+ * calling thread. Counts are exposed as the tourguide.attraction.popularity gauge, tagged with
+ * the attraction, the event and the window.
+ */
+public class AttractionPopularity implements LocationEventHandler, RewardListener {
+	private final AttractionCatalog attractionCatalog;
+	private final RewardsService rewardsService;
+	private final MeterRegistry meterRegistry;
+	private final LongSupplier clock;
+	private final Map<String, Counters> countersByAttraction = new ConcurrentHashMap<>();
+
+	public AttractionPopularity(AttractionCatalog attractionCatalog, RewardsService rewardsService,
+			MeterRegistry meterRegistry) {
+		this(attractionCatalog, rewardsService, meterRegistry, System::currentTimeMillis);
+	}
+
+	/**
+	 * @param attractionCatalog Source of the attractions, refreshed off the bus consumer thread
+	 * @param rewardsService Decides whether a location is within the proximity of an attraction
+	 * @param meterRegistry Registry of the popularity gauges
+	 * @param clock Current time in milliseconds, bucketing the counts
+	 */
+	public AttractionPopularity(AttractionCatalog attractionCatalog, RewardsService rewardsService,
+			MeterRegistry meterRegistry, LongSupplier clock) {
+		this.attractionCatalog = attractionCatalog;
+		this.rewardsService = rewardsService;
+		this.meterRegistry = meterRegistry;
+		this.clock = clock;
+	}
+
+	@Override
+	public void onEvents(List<LocationEvent> events) {
+		List<Attraction> attractions = attractionCatalog.getAttractions();
+		for (LocationEvent event : events) {
+			for (Attraction attraction : attractions) {
+				if (rewardsService.nearAttraction(event.visitedLocation(), attraction)) {
+					counters(attraction.attractionName).visits.increment();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void onRewardGranted(User user, UserReward reward) {
+		counters(reward.attraction.attractionName).rewards.increment();
+	}
+
+	/**
+	 * Counts the attractions returned to a user as nearby.
+	 *
+	 * @param nearbyAttractions The nearby attractions returned
+	 */
+	public void recordNearbyAttractions(List<NearbyAttractionDTO> nearbyAttractions) {
+		for (NearbyAttractionDTO nearbyAttraction : nearbyAttractions) {
+			counters(nearbyAttraction.attractionName()).nearbyAppearances.increment();
+		}
+	}
+
+	/**
+	 * @param window The window
+	 * @param limit Maximum number of attractions
+	 * @return The most visited attractions over the window, then the most rewarded and the most often nearby
+	 */
+	public List<AttractionPopularityEntry> getMostPopular(Window window, int limit) {
+		return countersByAttraction.entrySet().stream()
+				.map(entry -> new AttractionPopularityEntry(entry.getKey(), window.getLabel(),
+						entry.getValue().visits.sum(window), entry.getValue().rewards.sum(window),
+						entry.getValue().nearbyAppearances.sum(window)))
+				.sorted(Comparator.comparingLong(AttractionPopularityEntry::visits)
+						.thenComparingLong(AttractionPopularityEntry::rewards)
+						.thenComparingLong(AttractionPopularityEntry::nearbyAppearances)
+						.reversed()
+						.thenComparing(AttractionPopularityEntry::attractionName))
+				.limit(limit)
+				.toList();
+	}
+
+	private Counters counters(String attractionName) {
+		Counters counters = countersByAttraction.get(attractionName);
+		return counters != null ? counters : countersByAttraction.computeIfAbsent(attractionName, this::register);
+	}
+
+	private Counters register(String attractionName) {
+		Counters counters = new Counters(clock);
+		for (Window window : Window.values()) {
+			gauge(attractionName, "visit", window, counters.visits);
+			gauge(attractionName, "reward", window, counters.rewards);
+			gauge(attractionName, "nearby", window, counters.nearbyAppearances);
+		}
+		return counters;
+	}
+
+	private void gauge(String attractionName, String event, Window window, SlidingWindowCounter counter) {
+		Gauge.builder("tourguide.attraction.popularity", counter, c -> c.sum(window))
+				.description("Events per attraction over a sliding window")
+				.tag("attraction", attractionName)
+				.tag("event", event)
+				.tag("window", window.getLabel())
+				.register(meterRegistry);
+	}
+
+	private static class Counters {
+		private final SlidingWindowCounter visits;
+		private final SlidingWindowCounter rewards;
+		private final SlidingWindowCounter nearbyAppearances;
+
+		private Counters(LongSupplier clock) {
+			visits = new SlidingWindowCounter(clock);
+			rewards = new SlidingWindowCounter(clock);
+			nearbyAppearances = new SlidingWindowCounter(clock);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.tourguide.popularity;
+
+/**
+ * Popularity of an attraction over one window.
+ *
+ * @param attractionName The attraction
+ * @param window The window, 1m, 1h or 24h
+ * @param visits Tracked locations within the proximity of the attraction
+ * @param rewards Rewards granted for the attraction
+ * @param nearbyAppearances Times the attraction was among the nearby attractions of a user
+ */
+public record AttractionPopularityEntry(
+		String attractionName,
+		String window,
+		long visits,
+		long rewards,
+		long nearbyAppearances
+) {
+}
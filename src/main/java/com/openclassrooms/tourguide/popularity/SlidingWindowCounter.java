@@ -0,0 +1,125 @@
+package com.openclassrooms.tourguide.popularity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Event counter over the last minute, hour and day.
+ *
+ * Counts go to three rings of {@link LongAdder} buckets: 60 of a second, 60 of a minute and
+ * 24 of an hour, so that concurrent increments do not contend. A bucket is cleared when
+ * its ring comes back to it, the only time an increment takes a lock. A window sums the
+ * buckets of its ring that are still in it; the current bucket being partly elapsed, the
+ * hour window covers between 59 and 60 minutes, and likewise for the others.
+ */
+public class SlidingWindowCounter {
+
+	public enum Window {
+		MINUTE("1m"),
+		HOUR("1h"),
+		DAY("24h");
+
+		private final String label;
+
+		Window(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * @param label 1m, 1h or 24h
+		 * @return The window with that label
+		 */
+		public static Window fromLabel(String label) {
+			for (Window window : values()) {
+				if (window.label.equals(label)) {
+					return window;
+				}
+			}
+			throw new IllegalArgumentException("Window must be 1m, 1h or 24h: " + label);
+		}
+	}
+
+	private final LongSupplier clock;
+	private final Ring seconds = new Ring(60, TimeUnit.SECONDS.toMillis(1));
+	private final Ring minutes = new Ring(60, TimeUnit.MINUTES.toMillis(1));
+	private final Ring hours = new Ring(24, TimeUnit.HOURS.toMillis(1));
+
+	public SlidingWindowCounter() {
+		this(System::currentTimeMillis);
+	}
+
+	/**
+	 * @param clock Current time in milliseconds
+	 */
+	public SlidingWindowCounter(LongSupplier clock) {
+		this.clock = clock;
+	}
+
+	public void increment() {
+		long now = clock.getAsLong();
+		seconds.increment(now);
+		minutes.increment(now);
+		hours.increment(now);
+	}
+
+	/**
+	 * @param window The window
+	 * @return The number of events counted within the window
+	 */
+	public long sum(Window window) {
+		long now = clock.getAsLong();
+		return switch (window) {
+		case MINUTE -> seconds.sum(now);
+		case HOUR -> minutes.sum(now);
+		case DAY -> hours.sum(now);
+		};
+	}
+
+	private static class Ring {
+		private final long bucketMillis;
+		private final LongAdder[] buckets;
+		// index of the period each bucket currently counts, since the epoch
+		private final AtomicLongArray periods;
+
+		Ring(int size, long bucketMillis) {
+			this.bucketMillis = bucketMillis;
+			this.buckets = new LongAdder[size];
+			this.periods = new AtomicLongArray(size);
+			for (int i = 0; i < size; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void increment(long now) {
+			long period = now / bucketMillis;
+			int index = (int) (period % buckets.length);
+			if (periods.get(index) != period) {
+				synchronized (buckets[index]) {
+					if (periods.get(index) < period) {
+						buckets[index].reset();
+						periods.set(index, period);
+					}
+				}
+			}
+			buckets[index].increment();
+		}
+
+		long sum(long now) {
+			long current = now / bucketMillis;
+			long sum = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				long period = periods.get(i);
+				if (period > current - buckets.length && period <= current) {
+					sum += buckets[i].sum();
+				}
+			}
+			return sum;
+		}
+	}
+}
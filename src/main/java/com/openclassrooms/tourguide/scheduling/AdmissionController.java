@@ -0,0 +1,138 @@
+package com.openclassrooms.tourguide.scheduling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive concurrency limit in front of an upstream service, shared by two priority lanes.
+ *
+ * The limit follows AIMD: it grows by one every limit calls answered within the latency
+ * target while the limit is in use, and shrinks by 10% on every slow, timed out or failed
+ * call, so that the service is never sent more concurrent calls than it answers in time.
+ *
+ * Interactive calls may use the whole limit and are admitted before any waiting bulk call;
+ * bulk calls never use the reserved interactive share. An interactive call that cannot be
+ * admitted within its queueing SLO is shed, and the service is then reported overloaded for
+ * a second so that new requests are refused at once instead of queueing.
+ */
+public class AdmissionController {
+	private static final long SHEDDING_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final AdmissionPolicy policy;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition interactiveTurn = lock.newCondition();
+	private final Condition bulkTurn = lock.newCondition();
+	// written under the lock, read without it by the monitoring methods
+	private volatile double limit;
+	private volatile int inFlight;
+	private volatile int interactiveWaiting;
+	private volatile long overloadedUntilNanos = System.nanoTime();
+
+	public AdmissionController(AdmissionPolicy policy) {
+		this.policy = policy;
+		this.limit = policy.maxLimit();
+	}
+
+	/**
+	 * Waits for a permit to call the service, up to the queueing time of the priority.
+	 *
+	 * @param priority The priority of the call
+	 * @return true if the call may proceed, in which case {@link #release} or {@link #cancel} must follow
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	public boolean acquire(Priority priority) throws InterruptedException {
+		boolean interactive = priority == Priority.INTERACTIVE;
+		long remainingNanos = (interactive ? policy.interactiveQueueSlo() : policy.bulkQueueTimeout()).toNanos();
+		lock.lock();
+		try {
+			if (interactive) {
+				interactiveWaiting++;
+			}
+			try {
+				while (!admissible(interactive)) {
+					if (remainingNanos <= 0) {
+						if (interactive) {
+							overloadedUntilNanos = System.nanoTime() + SHEDDING_WINDOW_NANOS;
+						}
+						return false;
+					}
+					remainingNanos = (interactive ? interactiveTurn : bulkTurn).awaitNanos(remainingNanos);
+				}
+				inFlight++;
+				return true;
+			} finally {
+				if (interactive) {
+					interactiveWaiting--;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives back a permit and adapts the limit to the outcome of the call.
+	 *
+	 * @param latencyNanos Duration of the call
+	 * @param overloaded true if the call timed out or failed
+	 */
+	public void release(long latencyNanos, boolean overloaded) {
+		lock.lock();
+		try {
+			int used = inFlight--;
+			if (overloaded || latencyNanos > policy.latencyTarget().toNanos()) {
+				limit = Math.max(policy.minLimit(), limit * 0.9);
+			} else if (used * 2 >= (int) limit) {
+				limit = Math.min(policy.maxLimit(), limit + 1 / limit);
+			}
+			if (interactiveWaiting > 0) {
+				interactiveTurn.signal();
+			} else {
+				bulkTurn.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives back a permit whose call was not sent, leaving the limit unchanged.
+	 */
+	public void cancel() {
+		lock.lock();
+		try {
+			inFlight--;
+			if (interactiveWaiting > 0) {
+				interactiveTurn.signal();
+			} else {
+				bulkTurn.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return true if interactive calls are being shed, or queue beyond the limit
+	 */
+	public boolean isOverloaded() {
+		return System.nanoTime() - overloadedUntilNanos < 0 || interactiveWaiting > (int) limit;
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	private boolean admissible(boolean interactive) {
+		if (interactive) {
+			return inFlight < (int) limit;
+		}
+		int bulkLimit = Math.max(1, (int) (limit * (1 - policy.reservedInteractiveShare())));
+		return interactiveWaiting == 0 && inFlight < bulkLimit;
+	}
+}
@@ -0,0 +1,23 @@
+package com.openclassrooms.tourguide.scheduling;
+
+import java.time.Duration;
+
+/**
+ * Admission settings of one upstream service.
+ *
+ * @param minLimit Lowest concurrency limit the adaptive limit can fall to
+ * @param maxLimit Highest concurrency limit, the number of bulkhead threads
+ * @param reservedInteractiveShare Share of the limit bulk calls cannot use, between 0 and 1
+ * @param interactiveQueueSlo Longest wait for a permit before an interactive call is shed
+ * @param bulkQueueTimeout Longest wait for a permit before a bulk call gives up
+ * @param latencyTarget Call latency above which the limit is decreased
+ */
+public record AdmissionPolicy(
+		int minLimit,
+		int maxLimit,
+		double reservedInteractiveShare,
+		Duration interactiveQueueSlo,
+		Duration bulkQueueTimeout,
+		Duration latencyTarget
+) {
+}
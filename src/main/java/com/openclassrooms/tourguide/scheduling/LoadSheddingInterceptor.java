@@ -0,0 +1,35 @@
+package com.openclassrooms.tourguide.scheduling;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Refuses requests with a 503 while one of the upstream services they need is shedding
+ * interactive calls, instead of letting them queue past their latency objective.
+ */
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+	private final List<AdmissionController> admissionControllers;
+
+	/**
+	 * @param admissionControllers The admission control of the upstream services
+	 */
+	public LoadSheddingInterceptor(List<AdmissionController> admissionControllers) {
+		this.admissionControllers = admissionControllers;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (admissionControllers.stream().anyMatch(AdmissionController::isOverloaded)) {
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+			return false;
+		}
+		return true;
+	}
+}
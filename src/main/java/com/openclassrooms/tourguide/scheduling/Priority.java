@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.scheduling;
+
+import java.util.function.Supplier;
+
+/**
+ * Priority of the work running on the current thread, read when it calls an upstream service.
+ * Work is interactive unless it runs as bulk: tracking sweeps and background calculations
+ * mark themselves as bulk so that user requests keep a share of the upstream capacity.
+ */
+public enum Priority {
+	INTERACTIVE,
+	BULK;
+
+	private static final ThreadLocal<Priority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+	/**
+	 * @return The priority of the work running on the current thread
+	 */
+	public static Priority current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Runs work with this priority on the current thread.
+	 *
+	 * @param work The work
+	 * @return The result of the work
+	 */
+	public <T> T call(Supplier<T> work) {
+		Priority previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return work.get();
+		} finally {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Runs work with this priority on the current thread.
+	 *
+	 * @param work The work
+	 */
+	public void run(Runnable work) {
+		call(() -> {
+			work.run();
+			return null;
+		});
+	}
+}
@@ -0,0 +1,133 @@
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.storage.SegmentFileStore;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Background job keeping the histories and rewards held on the heap within a budget, instead
+ * of growing with the number of users.
+ *
+ * When the estimated heap of the resident users exceeds the budget, the users least recently
+ * queried are paged out to a memory-mapped store until it falls back under 90% of the budget.
+ * Their latest location and reward points stay on the heap. Tracking and the reward stage work
+ * on a paged out user without paging it in: new locations and rewards go to a small tail on the
+ * heap, which a later pass merges into the cold copy. Only the history and rewards queries page
+ * a user back in, and only they count as an access. Paging out and in are writes of the user,
+ * run on its lane.
+ */
+public class ColdUserEvictor {
+	private static final double LOW_WATERMARK = 0.9;
+
+	private Logger logger = LoggerFactory.getLogger(ColdUserEvictor.class);
+	private final TourGuideService tourGuideService;
+	private final SegmentFileStore store;
+	private final long heapBudgetBytes;
+	private volatile EvictionReport lastReport;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param tourGuideService The service holding the users
+	 * @param store Where the histories and rewards are paged out
+	 * @param heapBudgetBytes Heap the resident histories and rewards may hold
+	 */
+	public ColdUserEvictor(TourGuideService tourGuideService, SegmentFileStore store, long heapBudgetBytes) {
+		this.tourGuideService = tourGuideService;
+		this.store = store;
+		this.heapBudgetBytes = heapBudgetBytes;
+	}
+
+	/**
+	 * Runs an eviction pass periodically on a background thread.
+	 *
+	 * @param interval Delay between the end of a pass and the start of the next one
+	 */
+	public synchronized void start(Duration interval) {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cold-user-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::evictQuietly, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Pages out the least recently accessed users if the resident ones exceed the budget.
+	 *
+	 * @return What the pass paged out
+	 */
+	public EvictionReport evict() {
+		long start = System.currentTimeMillis();
+		List<User> users = tourGuideService.getAllUsers();
+		long residentBytes = users.stream().mapToLong(User::getResidentBytes).sum();
+		int pagedOut = 0;
+		if (residentBytes > heapBudgetBytes) {
+			UserLanes userLanes = tourGuideService.getUserLanes();
+			long target = (long) (heapBudgetBytes * LOW_WATERMARK);
+			List<User> coldestFirst = users.stream()
+					// paged out users holding a tail are merged again
+					.filter(user -> user.getResidentBytes() > 0)
+					.sorted(Comparator.comparingLong(User::getLastAccessMillis))
+					.toList();
+			for (User user : coldestFirst) {
+				if (residentBytes <= target) {
+					break;
+				}
+				residentBytes -= userLanes.call(user, () -> user.pageOut(store));
+				pagedOut++;
+			}
+		}
+		int pagedOutUsers = (int) users.stream().filter(User::isPagedOut).count();
+		EvictionReport report = new EvictionReport(users.size(), pagedOut, pagedOutUsers, residentBytes,
+				store.getLiveBytes(), System.currentTimeMillis() - start);
+		lastReport = report;
+		if (pagedOut > 0) {
+			logger.info("Cold user eviction: " + pagedOut + " users paged out, " + pagedOutUsers + " of "
+					+ report.users() + " in the cold store (" + report.coldBytes() / 1024 + " KiB), about "
+					+ report.residentBytes() / 1024 + " KiB resident, in " + report.durationMillis() + " ms");
+		}
+		return report;
+	}
+
+	/**
+	 * @return The report of the last pass, or null if none ran yet
+	 */
+	public EvictionReport getLastReport() {
+		return lastReport;
+	}
+
+	/**
+	 * @return The store the users are paged out to
+	 */
+	public SegmentFileStore getStore() {
+		return store;
+	}
+
+	public synchronized void shutdown() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		store.close();
+	}
+
+	private void evictQuietly() {
+		try {
+			evict();
+		} catch (RuntimeException e) {
+			logger.warn("Cold user eviction failed, retrying at next pass", e);
+		}
+	}
+}
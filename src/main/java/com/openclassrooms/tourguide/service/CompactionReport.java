@@ -0,0 +1,12 @@
+package com.openclassrooms.tourguide.service;
+
+/**
+ * Outcome of a history compaction pass.
+ *
+ * @param users Number of users whose history was examined
+ * @param locationsRemoved Number of visited locations dropped
+ * @param bytesReclaimed Estimated heap freed by the dropped locations
+ * @param durationMillis Duration of the pass
+ */
+public record CompactionReport(int users, long locationsRemoved, long bytesReclaimed, long durationMillis) {
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.tourguide.service;
+
+/**
+ * Outcome of a cold user eviction pass.
+ *
+ * @param users Number of users examined
+ * @param pagedOut Number of users paged out by the pass
+ * @param pagedOutUsers Number of users paged out after the pass, including earlier passes
+ * @param residentBytes Estimated heap held by the histories and rewards after the pass
+ * @param coldBytes Bytes of histories and rewards in the cold store
+ * @param durationMillis Duration of the pass
+ */
+public record EvictionReport(int users, int pagedOut, int pagedOutUsers, long residentBytes, long coldBytes,
+		long durationMillis) {
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.geo.TrajectorySimplifier;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Background job keeping location histories bounded: the recent history keeps every tracked
+ * location, the older history is reduced to a simplified trajectory.
+ *
+ * The locations that earned a reward are pinned and survive compaction. Rewards are
+ * calculated within seconds of tracking, long before a location gets old enough to be
+ * compacted, so compaction never drops a location whose reward is still to be granted.
+ */
+public class HistoryCompactor {
+	private Logger logger = LoggerFactory.getLogger(HistoryCompactor.class);
+	private final TourGuideService tourGuideService;
+	private final TrajectorySimplifier simplifier;
+	private final Duration fullResolutionWindow;
+	private volatile CompactionReport lastReport;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param tourGuideService The service holding the users
+	 * @param simplifier The simplification applied to old history
+	 * @param fullResolutionWindow Age under which history is left untouched
+	 */
+	public HistoryCompactor(TourGuideService tourGuideService, TrajectorySimplifier simplifier,
+			Duration fullResolutionWindow) {
+		this.tourGuideService = tourGuideService;
+		this.simplifier = simplifier;
+		this.fullResolutionWindow = fullResolutionWindow;
+	}
+
+	/**
+	 * Runs a compaction pass periodically on a background thread.
+	 *
+	 * @param interval Delay between the end of a pass and the start of the next one
+	 */
+	public synchronized void start(Duration interval) {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "history-compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::compactQuietly, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Compacts the history of every user owned by this node.
+	 *
+	 * @return What the pass reclaimed
+	 */
+	public CompactionReport compact() {
+		long start = System.currentTimeMillis();
+		Date olderThan = new Date(start - fullResolutionWindow.toMillis());
+		List<User> users = tourGuideService.getOwnedUsers();
+		long removed = 0;
+		UserLanes userLanes = tourGuideService.getUserLanes();
+		for (User user : users) {
+			// paged out users are cold, their history is compacted once they are paged back in
+			if (user.isPagedOut()) {
+				continue;
+			}
+			// on the lane, so that no reward is added between pinning and compacting
+			removed += userLanes.call(user, () -> {
+				Set<VisitedLocation> pinned = user.getUserRewards().stream()
+						.map(reward -> reward.visitedLocation)
+						.collect(Collectors.toSet());
+				return user.getLocationHistory().compact(olderThan, simplifier, pinned);
+			});
+		}
+		CompactionReport report = new CompactionReport(users.size(), removed,
+				removed * LocationHistory.ESTIMATED_BYTES_PER_LOCATION, System.currentTimeMillis() - start);
+		lastReport = report;
+		logger.info("History compaction: " + report.locationsRemoved() + " locations removed from "
+				+ report.users() + " users, about " + report.bytesReclaimed() / 1024 + " KiB reclaimed in "
+				+ report.durationMillis() + " ms");
+		return report;
+	}
+
+	/**
+	 * @return The report of the last pass, or null if none ran yet
+	 */
+	public CompactionReport getLastReport() {
+		return lastReport;
+	}
+
+	public synchronized void shutdown() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	private void compactQuietly() {
+		try {
+			compact();
+		} catch (RuntimeException e) {
+			logger.warn("History compaction failed, retrying at next pass", e);
+		}
+	}
+}
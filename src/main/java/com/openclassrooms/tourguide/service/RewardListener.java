@@ -0,0 +1,18 @@
+package com.openclassrooms.tourguide.service;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Callback notified of the rewards granted to users.
+ */
+public interface RewardListener {
+
+	/**
+	 * Called on the lane of the user right after the reward was added, so it must not block.
+	 *
+	 * @param user The rewarded user
+	 * @param reward The new reward
+	 */
+	void onRewardGranted(User user, UserReward reward);
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.event.LocationEventHandler;
+import com.openclassrooms.tourguide.scheduling.Priority;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Reward stage of the tracking pipeline: calculates rewards for the users whose location
+ * changed, on its own threads, so that tracking never waits for RewardCentral.
+ *
+ * Events are coalesced per user: a user already waiting for a calculation is not scheduled
+ * again, since that calculation will scan the new locations too.
+ */
+public class RewardWorker implements LocationEventHandler {
+	private Logger logger = LoggerFactory.getLogger(RewardWorker.class);
+	private final RewardsService rewardsService;
+	private final ExecutorService executor;
+	private final Set<UUID> scheduledUsers = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger pendingCalculations = new AtomicInteger();
+
+	/**
+	 * @param rewardsService The service calculating the rewards
+	 * @param threads Number of threads calculating rewards in parallel
+	 */
+	public RewardWorker(RewardsService rewardsService, int threads) {
+		this.rewardsService = rewardsService;
+		this.executor = Executors.newFixedThreadPool(threads);
+	}
+
+	@Override
+	public void onEvents(List<LocationEvent> events) {
+		for (LocationEvent event : events) {
+			if (!event.rewardsCalculated()) {
+				schedule(event.user());
+			}
+		}
+	}
+
+	/**
+	 * Waits until every scheduled calculation is over.
+	 */
+	public void awaitIdle() {
+		while (pendingCalculations.get() > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Shuts down the reward threads.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	private void schedule(User user) {
+		if (!scheduledUsers.add(user.getUserId())) {
+			return;
+		}
+		pendingCalculations.incrementAndGet();
+		executor.execute(() -> {
+			// locations added from now on need another calculation
+			scheduledUsers.remove(user.getUserId());
+			try {
+				Priority.BULK.run(() -> rewardsService.calculateRewards(user));
+			} catch (RuntimeException e) {
+				logger.warn("Reward calculation failed for " + user.getUserName() + ": " + e.getMessage());
+			} finally {
+				pendingCalculations.decrementAndGet();
+			}
+		});
+	}
+}
@@ -1,10 +1,12 @@
 package com.openclassrooms.tourguide.service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
@@ -12,6 +14,11 @@ import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.RewardCentralGateway;
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+import com.openclassrooms.tourguide.jfr.CalculateRewardsEvent;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
@@ -31,20 +38,36 @@ public class RewardsService {
     private int defaultProximityBuffer = 10;
 	private int proximityBuffer = defaultProximityBuffer;
 	private int attractionProximityRange = 200;
-	private final GpsUtil gpsUtil;
-	private final RewardCentral rewardsCentral;
+	// bumped when the proximity buffer changes, so that locations scanned before are scanned again
+	private volatile int rewardRulesVersion;
+	private final GpsGateway gpsGateway;
+	private final RewardGateway rewardGateway;
 
 	private final ExecutorService executorService = Executors.newFixedThreadPool(100);
+	// user writes go through the lanes, shared with the TourGuideService
+	private final UserLanes userLanes = new UserLanes(Runtime.getRuntime().availableProcessors());
+	private final List<RewardListener> rewardListeners = new CopyOnWriteArrayList<>();
 
 	/**
-	 * Constructs a RewardsService with dependencies.
+	 * Constructs a RewardsService calling the gpsUtil and RewardCentral libraries.
 	 *
 	 * @param gpsUtil The GPS utility service for location and attraction data
 	 * @param rewardCentral The reward central service for points calculation
 	 */
 	public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral) {
-		this.gpsUtil = gpsUtil;
-		this.rewardsCentral = rewardCentral;
+		this(new GpsUtilGateway(gpsUtil), new RewardCentralGateway(rewardCentral));
+	}
+
+	/**
+	 * Constructs a RewardsService with dependencies.
+	 *
+	 * @param gpsGateway The GPS service for location and attraction data
+	 * @param rewardGateway The reward service for points calculation
+	 */
+	@Autowired
+	public RewardsService(GpsGateway gpsGateway, RewardGateway rewardGateway) {
+		this.gpsGateway = gpsGateway;
+		this.rewardGateway = rewardGateway;
 	}
 
 	/**
@@ -53,35 +76,68 @@ public class RewardsService {
 	 * @param proximityBuffer The proximity distance in miles within which attractions
 	 *                        are considered for rewards
 	 */
-	public void setProximityBuffer(int proximityBuffer) {
-		this.proximityBuffer = proximityBuffer;
+	public synchronized void setProximityBuffer(int proximityBuffer) {
+		if (this.proximityBuffer != proximityBuffer) {
+			this.proximityBuffer = proximityBuffer;
+			rewardRulesVersion++;
+		}
 	}
 
 	/**
 	 * Resets the proximity buffer to the default value.
 	 */
 	public void setDefaultProximityBuffer() {
-		proximityBuffer = defaultProximityBuffer;
+		setProximityBuffer(defaultProximityBuffer);
 	}
 
 	/**
 	 * Calculates rewards for a user based on their visited locations and nearby attractions.
 	 *
+	 * Only the locations added since the last calculation are scanned, against the names of the
+	 * attractions already rewarded, so that a paged out user is never paged back in. Once the
+	 * proximity buffer changes, the next calculation of each user scans its whole history again,
+	 * decoded from the cold store for a paged out user. Points are
+	 * fetched from RewardCentral on the calling thread, once per newly reached attraction; the
+	 * rewards are then added on the user's lane. Locations are marked as scanned once the rewards
+	 * are added, a failed calculation scans them again next time.
+	 *
 	 * @param user The user for whom to calculate rewards
 	 */
 	public void calculateRewards(User user) {
-		List<VisitedLocation> userLocations = user.getVisitedLocations();
-		List<Attraction> attractions = gpsUtil.getAttractions();
-
+		CalculateRewardsEvent event = new CalculateRewardsEvent();
+		event.begin();
+		int rulesVersion = rewardRulesVersion;
+		boolean rescan = user.getRewardRulesVersion() != rulesVersion;
+		List<VisitedLocation> unrewardedLocations = user.getUnrewardedLocations();
+		List<VisitedLocation> userLocations = rescan ? user.getVisitedLocations() : unrewardedLocations;
+		List<Attraction> attractions = gpsGateway.getAttractions();
+		Set<String> rewardedAttractions = new HashSet<>(user.getRewardedAttractions());
+
+		List<UserReward> newRewards = new ArrayList<>();
 		for (VisitedLocation visitedLocation : userLocations) {
 			for (Attraction attraction : attractions) {
-				if (nearAttraction(visitedLocation, attraction)) {
+				if (!rewardedAttractions.contains(attraction.attractionName) && nearAttraction(visitedLocation, attraction)) {
+					rewardedAttractions.add(attraction.attractionName);
 					int rewardPoints = getRewardPoints(attraction, user);
-					UserReward reward = new UserReward(visitedLocation, attraction, rewardPoints);
-					user.addUserReward(reward);
+					newRewards.add(new UserReward(visitedLocation, attraction, rewardPoints));
 				}
 			}
 		}
+		if (rescan || !userLocations.isEmpty()) {
+			userLanes.run(user, () -> {
+				newRewards.stream()
+						.filter(user::addUserReward)
+						.forEach(reward -> rewardListeners.forEach(listener -> listener.onRewardGranted(user, reward)));
+				user.markRewardsCalculated(unrewardedLocations, rulesVersion);
+			});
+		}
+		if (event.shouldCommit()) {
+			event.userName = user.getUserName();
+			event.locations = userLocations.size();
+			event.attractions = attractions.size();
+			event.hits = newRewards.size();
+			event.commit();
+		}
 	}
 
 	/**
@@ -97,10 +153,27 @@ public class RewardsService {
 	}
 
 	/**
-	 * Shuts down the executor service used for asynchronous operations.
+	 * Registers a callback run on the user's lane whenever a reward is granted.
+	 *
+	 * @param listener The callback, which must not block
+	 */
+	public void addRewardListener(RewardListener listener) {
+		rewardListeners.add(listener);
+	}
+
+	/**
+	 * @return The lanes serializing the writes to each user
+	 */
+	public UserLanes getUserLanes() {
+		return userLanes;
+	}
+
+	/**
+	 * Shuts down the executor service used for asynchronous operations and the user lanes.
 	 */
 	public void shutdown() {
 		executorService.shutdown();
+		userLanes.shutdown();
 	}
 
 	/**
@@ -121,7 +194,7 @@ public class RewardsService {
 	 * @param attraction The attraction to check
 	 * @return true if within proximity buffer, false otherwise
 	 */
-	private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
+	public boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
 		return getDistance(attraction, visitedLocation.location) <= proximityBuffer;
 	}
 
@@ -133,7 +206,7 @@ public class RewardsService {
 	 * @return The number of reward points earned
 	 */
 	public int getRewardPoints(Attraction attraction, User user) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+		return rewardGateway.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
 	}
 
 	/**
@@ -1,22 +1,45 @@
 package com.openclassrooms.tourguide.service;
 
+import com.openclassrooms.tourguide.cache.NearbyAttractionCache;
+import com.openclassrooms.tourguide.cluster.ClusterMembership;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.event.LocationEventBus;
+import com.openclassrooms.tourguide.event.LocationEventHandler;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.PricingGateway;
+import com.openclassrooms.tourguide.gateway.TripPricerGateway;
+import com.openclassrooms.tourguide.geo.BoundingBox;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.jfr.TrackLocationEvent;
+import com.openclassrooms.tourguide.popularity.AttractionPopularity;
+import com.openclassrooms.tourguide.scheduling.Priority;
 import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.user.TripDeals;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
 import com.openclassrooms.tourguide.user.UserReward;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
@@ -37,31 +60,85 @@ import tripPricer.TripPricer;
 @Service
 public class TourGuideService {
 	private Logger logger = LoggerFactory.getLogger(TourGuideService.class);
-	private final GpsUtil gpsUtil;
+	private final GpsGateway gpsGateway;
 	private final RewardsService rewardsService;
-	private final TripPricer tripPricer = new TripPricer();
+	private final PricingGateway pricingGateway;
 	public final Tracker tracker;
 	boolean testMode = true;
+	private ClusterMembership clusterMembership = ClusterMembership.standalone();
 
+	// bulk lane: tracking sweeps run here, interactive requests on the web server threads
 	private final ExecutorService executor = Executors.newFixedThreadPool(100);
+	// upstream calls run on the executor, the resulting writes on the lane of the user
+	private final UserLanes userLanes;
+
+	// location updates flow to the reward stage through the bus instead of blocking tracking
+	private final LocationEventBus locationEventBus = new LocationEventBus(65536, 1024);
+	private final RewardWorker rewardWorker;
+	private final NearbyAttractionCache nearbyAttractionCache;
+
+	// tracking requests currently running, shared between concurrent callers for the same user
+	private final Map<UUID, CompletableFuture<VisitedLocation>> inFlightTracking = new ConcurrentHashMap<>();
+	private long locationFreshnessMillis = TimeUnit.SECONDS.toMillis(30);
+	private volatile TripDealPrecomputer tripDealPrecomputer;
+	private volatile AttractionPopularity attractionPopularity;
 
 	/**
-	 * Constructs a TourGuideService with dependencies.
+	 * Constructs a TourGuideService calling the gpsUtil and TripPricer libraries.
 	 *
 	 * @param gpsUtil The GPS utility service for location tracking
 	 * @param rewardsService The service for reward calculations
 	 */
 	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService) {
-		this.gpsUtil = gpsUtil;
+		this(new GpsUtilGateway(gpsUtil), rewardsService, new TripPricerGateway(new TripPricer()));
+	}
+
+	/**
+	 * Constructs a TourGuideService with dependencies.
+	 *
+	 * @param gpsGateway The GPS service for location tracking
+	 * @param rewardsService The service for reward calculations
+	 * @param pricingGateway The pricing service used to compute trip deals
+	 */
+	public TourGuideService(GpsGateway gpsGateway, RewardsService rewardsService, PricingGateway pricingGateway) {
+		this(gpsGateway, rewardsService, pricingGateway, false);
+	}
+
+	/**
+	 * Constructs a TourGuideService with dependencies, optionally loading the internal test
+	 * users only once the application is ready so that the context starts without them.
+	 *
+	 * @param gpsGateway The GPS service for location tracking
+	 * @param rewardsService The service for reward calculations
+	 * @param pricingGateway The pricing service used to compute trip deals
+	 * @param loadUsersAfterReady true to defer the internal users to {@link #loadDeferredInternalUsers()}
+	 */
+	@Autowired
+	public TourGuideService(GpsGateway gpsGateway, RewardsService rewardsService, PricingGateway pricingGateway,
+			@Value("${tourguide.users.load-after-ready:true}") boolean loadUsersAfterReady) {
+		this.gpsGateway = gpsGateway;
 		this.rewardsService = rewardsService;
+		this.pricingGateway = pricingGateway;
+		this.userLanes = rewardsService.getUserLanes();
+		this.rewardWorker = new RewardWorker(rewardsService, 100);
+		locationEventBus.subscribe(rewardWorker);
+		this.nearbyAttractionCache = new NearbyAttractionCache(gpsGateway, rewardsService,
+				NearbyAttractionCache.DEFAULT_PRECISION, 5, 100_000, 1_000_000);
+		locationEventBus.subscribe(nearbyAttractionCache);
 		
 		Locale.setDefault(Locale.US);
 
-		if (testMode) {
+		if (testMode && loadUsersAfterReady) {
+			logger.info("TestMode enabled, users will be initialized once the application is ready");
+			internalUsersDeferred = true;
+		} else if (testMode) {
 			logger.info("TestMode enabled");
 			logger.debug("Initializing users");
 			initializeInternalUsers();
 			logger.debug("Finished initializing users");
+			internalUsersLoaded.complete(null);
+		} else {
+			internalUsersLoaded.complete(null);
 		}
 		tracker = new Tracker(this);
 		addShutDownHook();
@@ -74,6 +151,7 @@ public class TourGuideService {
 	 * @return List of user rewards
 	 */
 	public List<UserReward> getUserRewards(User user) {
+		prepareQuery(user);
 		return user.getUserRewards();
 	}
 
@@ -84,8 +162,91 @@ public class TourGuideService {
 	 * @return The visited location
 	 */
 	public VisitedLocation getUserLocation(User user) {
-        return (!user.getVisitedLocations().isEmpty()) ? user.getLastVisitedLocation()
-                : trackUserLocation(user);
+        VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+        return lastVisitedLocation != null ? lastVisitedLocation : trackUserLocationCoalesced(user);
+	}
+
+	/**
+	 * Tracks a user's location, sharing a single GPS call between concurrent callers.
+	 *
+	 * If the user was tracked within the freshness window, the last location is reused.
+	 * Otherwise the first caller performs the tracking and the others wait for its result.
+	 *
+	 * @param user The user to track
+	 * @return The visited location
+	 */
+	public VisitedLocation trackUserLocationCoalesced(User user) {
+		VisitedLocation recentLocation = getRecentlyTrackedLocation(user);
+		if (recentLocation != null) {
+			return recentLocation;
+		}
+
+		CompletableFuture<VisitedLocation> tracking = new CompletableFuture<>();
+		CompletableFuture<VisitedLocation> inFlight = inFlightTracking.putIfAbsent(user.getUserId(), tracking);
+		if (inFlight != null) {
+			return inFlight.join();
+		}
+
+		try {
+			// another caller may have completed the tracking between the two checks
+			VisitedLocation visitedLocation = getRecentlyTrackedLocation(user);
+			if (visitedLocation == null) {
+				visitedLocation = trackUserLocation(user);
+			}
+			tracking.complete(visitedLocation);
+			return visitedLocation;
+		} catch (RuntimeException e) {
+			tracking.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlightTracking.remove(user.getUserId(), tracking);
+		}
+	}
+
+	/**
+	 * Sets how long a tracked location is reused by coalesced tracking requests.
+	 *
+	 * @param freshnessWindow The time during which the last tracked location is considered fresh
+	 */
+	public void setLocationFreshnessWindow(Duration freshnessWindow) {
+		this.locationFreshnessMillis = freshnessWindow.toMillis();
+	}
+
+	private VisitedLocation getRecentlyTrackedLocation(User user) {
+		Date latestLocationTimestamp = user.getLatestLocationTimestamp();
+		VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+		if (latestLocationTimestamp == null || lastVisitedLocation == null) {
+			return null;
+		}
+		long age = System.currentTimeMillis() - latestLocationTimestamp.getTime();
+		return age <= locationFreshnessMillis ? lastVisitedLocation : null;
+	}
+
+	/**
+	 * Gets the locations a user visited during a time window.
+	 *
+	 * @param user The user
+	 * @param from Start of the window, inclusive, or null for no lower bound
+	 * @param to End of the window, inclusive, or null for no upper bound
+	 * @return The visited locations, oldest first
+	 */
+	public List<VisitedLocation> getUserLocationHistory(User user, Date from, Date to) {
+		prepareQuery(user);
+		return user.getLocationHistory().between(from, to);
+	}
+
+	/**
+	 * Gets the locations a user visited inside a bounding box, optionally during a time window.
+	 *
+	 * @param user The user
+	 * @param box The area to search
+	 * @param from Start of the window, inclusive, or null for no lower bound
+	 * @param to End of the window, inclusive, or null for no upper bound
+	 * @return The visited locations, oldest first
+	 */
+	public List<VisitedLocation> getUserLocationsWithin(User user, BoundingBox box, Date from, Date to) {
+		prepareQuery(user);
+		return user.getLocationHistory().within(box, from, to);
 	}
 
 	/**
@@ -95,42 +256,146 @@ public class TourGuideService {
 	 * @return The User object or null if not found
 	 */
 	public User getUser(String userName) {
-		return internalUserMap.get(userName);
+		User user = internalUserMap.get(userName);
+		return user != null ? user : getOrMaterializeInternalUser(userName);
 	}
 
 	/**
-	 * Gets all users in the system.
+	 * Gets all users in the system. While the internal users are still being loaded after
+	 * startup, only the ones loaded so far are returned.
 	 *
 	 * @return List of all users
 	 */
 	public List<User> getAllUsers() {
+		materializeInternalUsersIfLazy();
 		return internalUserMap.values().stream().collect(Collectors.toList());
 	}
 
+	/**
+	 * Gets the users owned by this node, the only ones it has to track.
+	 *
+	 * @return List of users in the local partition
+	 */
+	public List<User> getOwnedUsers() {
+		if (clusterMembership.isStandalone()) {
+			return getAllUsers();
+		}
+		materializeInternalUsersIfLazy();
+		return internalUserMap.values().stream()
+				.filter(user -> clusterMembership.isLocal(user.getUserName()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Sets the cluster this node belongs to. The tracker is woken up whenever the
+	 * partitions are rebalanced so that newly owned users get tracked right away.
+	 *
+	 * @param clusterMembership The cluster membership
+	 */
+	@Autowired(required = false)
+	public void setClusterMembership(ClusterMembership clusterMembership) {
+		this.clusterMembership = clusterMembership;
+		clusterMembership.addRebalanceListener(tracker::wakeUp);
+	}
+
 	/**
 	 * Adds a new user to the system if not already present.
 	 *
 	 * @param user The user to add
 	 */
 	public void addUser(User user) {
-		if (!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
+		addUserIfAbsent(user);
+	}
+
+	/**
+	 * Adds a new user unless its id or its user name is already taken, atomically.
+	 *
+	 * @param user The user to add
+	 * @return The user already registered with that id, else under that name, or null if the user was added
+	 */
+	public User addUserIfAbsent(User user) {
+		User existing = internalUsersById.putIfAbsent(user.getUserId(), user);
+		if (existing != null) {
+			return existing;
 		}
+		existing = internalUserMap.putIfAbsent(user.getUserName(), user);
+		if (existing != null) {
+			internalUsersById.remove(user.getUserId(), user);
+		}
+		return existing;
 	}
 
 	/**
 	 * Gets trip deals for a user based on their preferences and reward points.
 	 *
+	 * With a {@link TripDealPrecomputer}, the deals priced in the background are served as long as
+	 * they match the current points and preferences of the user, or are younger than its staleness
+	 * bound while a repricing is pending. Otherwise the deals are priced on the calling thread.
+	 *
 	 * @param user The user to get deals for
 	 * @return List of trip providers with deals
 	 */
 	public List<Provider> getTripDeals(User user) {
-		int cumulatativeRewardPoints = user.getUserRewards().stream().mapToInt(i -> i.getRewardPoints()).sum();
-		List<Provider> providers = tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(), user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints);
-		user.setTripDeals(providers);
-		return providers;
+		TripDealPrecomputer precomputer = tripDealPrecomputer;
+		if (precomputer != null) {
+			TripDeals tripDeals = user.getComputedTripDeals();
+			if (tripDeals.isFor(user.getRewardPoints(), user.getUserPreferences())
+					|| tripDeals.isYoungerThan(precomputer.getMaxStaleness())) {
+				return tripDeals.providers();
+			}
+		}
+		return priceTripDeals(user).providers();
+	}
+
+	/**
+	 * Prices the trip deals of a user for its current reward points and preferences, and stores
+	 * them unless deals priced later were stored in the meantime.
+	 *
+	 * @param user The user to price deals for
+	 * @return The priced deals
+	 */
+	public TripDeals priceTripDeals(User user) {
+		Instant pricedAt = Instant.now();
+		UserPreferences preferences = user.getUserPreferences();
+		int rewardPoints = user.getRewardPoints();
+		int numberOfAdults = preferences.getNumberOfAdults();
+		int numberOfChildren = preferences.getNumberOfChildren();
+		int tripDuration = preferences.getTripDuration();
+		List<Provider> providers = pricingGateway.getPrice(tripPricerApiKey, user.getUserId(), numberOfAdults,
+				numberOfChildren, tripDuration, rewardPoints);
+		TripDeals tripDeals = new TripDeals(providers, rewardPoints, numberOfAdults, numberOfChildren, tripDuration,
+				pricedAt);
+		userLanes.execute(user, () -> {
+			TripDeals current = user.getComputedTripDeals();
+			if (!current.isComputed() || !current.computedAt().isAfter(pricedAt)) {
+				user.setTripDeals(tripDeals);
+			}
+		});
+		return tripDeals;
+	}
+
+	/**
+	 * Changes the preferences of a user, repricing its trip deals in the background.
+	 *
+	 * @param user The user
+	 * @param userPreferences The new preferences
+	 */
+	public void setUserPreferences(User user, UserPreferences userPreferences) {
+		userLanes.run(user, () -> user.setUserPreferences(userPreferences));
+		TripDealPrecomputer precomputer = tripDealPrecomputer;
+		if (precomputer != null) {
+			precomputer.markDirty(user);
+		}
+	}
+
+	/**
+	 * Serves trip deals priced in the background by the precomputer instead of pricing them
+	 * on every request.
+	 *
+	 * @param tripDealPrecomputer The precomputer, null to price on every request
+	 */
+	public void setTripDealPrecomputer(TripDealPrecomputer tripDealPrecomputer) {
+		this.tripDealPrecomputer = tripDealPrecomputer;
 	}
 
 	/**
@@ -140,28 +405,83 @@ public class TourGuideService {
 	 * @return The visited location
 	 */
 	public VisitedLocation trackUserLocation(User user) {
-		VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
-		user.addToVisitedLocations(visitedLocation);
+		TrackLocationEvent event = new TrackLocationEvent();
+		event.begin();
+		VisitedLocation visitedLocation = gpsGateway.getUserLocation(user.getUserId());
+		userLanes.run(user, () -> recordLocation(user, visitedLocation));
+		commit(event, user, visitedLocation);
 		rewardsService.calculateRewards(user);
+		locationEventBus.publish(new LocationEvent(user, visitedLocation, true));
 		return visitedLocation;
 	}
 
 	/**
-	 * Tracks a user's location asynchronously and calculates rewards.
+	 * Tracks a user's location asynchronously.
+	 *
+	 * The new location is published to the reward stage, which calculates the rewards in the
+	 * background: the returned future completes as soon as the location is known.
 	 *
 	 * @param user The user to track
 	 * @return CompletableFuture containing the visited location
 	 */
 	public CompletableFuture<VisitedLocation> trackUserLocationAsync(User user) {
-		return CompletableFuture.supplyAsync(() -> {
-			VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
-			user.addToVisitedLocations(visitedLocation);
-			rewardsService.calculateRewardsAsync(user);
-			return visitedLocation;
-		}, executor)
-				.thenCompose(visitedLocation ->
-						rewardsService.calculateRewardsAsync(user)
-						.thenApply(ignore -> visitedLocation));
+		TrackLocationEvent event = new TrackLocationEvent();
+		event.begin();
+		return CompletableFuture.supplyAsync(() -> Priority.BULK.call(() -> gpsGateway.getUserLocation(user.getUserId())),
+				executor)
+				.thenCompose(visitedLocation -> userLanes.submit(user, () -> {
+					recordLocation(user, visitedLocation);
+					commit(event, user, visitedLocation);
+					locationEventBus.publish(new LocationEvent(user, visitedLocation, false));
+					return visitedLocation;
+				}));
+	}
+
+	private void prepareQuery(User user) {
+		// only queries keep a user resident, tracking and rewards work on a paged out user as well
+		user.recordAccess();
+		// a user paged out again before the read is decoded without paging in
+		if (user.isPagedOut()) {
+			userLanes.run(user, user::pageIn);
+		}
+	}
+
+	private void recordLocation(User user, VisitedLocation visitedLocation) {
+		user.addToVisitedLocations(visitedLocation);
+		user.setLatestLocationTimestamp(new Date());
+	}
+
+	private void commit(TrackLocationEvent event, User user, VisitedLocation visitedLocation) {
+		if (event.shouldCommit()) {
+			event.userName = user.getUserName();
+			event.latitude = visitedLocation.location.latitude;
+			event.longitude = visitedLocation.location.longitude;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Registers a handler receiving every location tracked from now on.
+	 *
+	 * @param handler The handler, called on the bus consumer thread
+	 */
+	public void addLocationEventHandler(LocationEventHandler handler) {
+		locationEventBus.subscribe(handler);
+	}
+
+	/**
+	 * @return The lanes serializing the writes to each user
+	 */
+	public UserLanes getUserLanes() {
+		return userLanes;
+	}
+
+	/**
+	 * Waits until the rewards of every location tracked so far have been calculated.
+	 */
+	public void awaitPendingRewards() {
+		locationEventBus.awaitDispatched();
+		rewardWorker.awaitIdle();
 	}
 
 	/**
@@ -178,37 +498,46 @@ public class TourGuideService {
 	}
 
 	/**
-	 * Gets nearby attractions for a visited location.
+	 * Gets nearby attractions for a visited location, from the cache while the user stays
+	 * in the same cell.
 	 *
 	 * @param visitedLocation The location to search around
 	 * @param user The user for reward point calculation
 	 * @return List of nearby attractions with details
 	 */
 	public List<NearbyAttractionDTO> getNearByAttractions(VisitedLocation visitedLocation, User user) {
-		return gpsUtil.getAttractions().stream()
-				.map(attraction -> Map.entry(
-						attraction,
-						rewardsService.getDistance(attraction, visitedLocation.location)
-				))
-				.sorted(Comparator.comparingDouble(Map.Entry::getValue))
-				.limit(5) //filtrage avant de calculer les rewardPoints
-				.map(entry -> new NearbyAttractionDTO(
-						entry.getKey(),
-						visitedLocation,
-						entry.getValue(),
-						rewardsService.getRewardPoints(entry.getKey(), user)
-				))
-				.collect(Collectors.toList());
+		List<NearbyAttractionDTO> nearbyAttractions = nearbyAttractionCache.getNearByAttractions(visitedLocation, user);
+		AttractionPopularity popularity = attractionPopularity;
+		if (popularity != null) {
+			popularity.recordNearbyAttractions(nearbyAttractions);
+		}
+		return nearbyAttractions;
+	}
+
+	/**
+	 * Counts the attractions returned by {@link #getNearByAttractions} in their popularity.
+	 *
+	 * @param attractionPopularity The popularity counters, null to count nothing
+	 */
+	public void setAttractionPopularity(AttractionPopularity attractionPopularity) {
+		this.attractionPopularity = attractionPopularity;
+	}
+
+	/**
+	 * Stops tracking and shuts down the executor service.
+	 */
+	public void shutdown() {
+		tracker.stopTracking();
+		executor.shutdown();
+		locationEventBus.shutdown();
+		rewardWorker.shutdown();
 	}
 
 	/**
 	 * Adds a shutdown hook to stop tracking and shutdown executor service.
 	 */
 	private void addShutDownHook() {
-		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-			tracker.stopTracking();
-			executor.shutdown();
-		}));
+		Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
 	}
 
 	/**********************************************************************************
@@ -219,43 +548,139 @@ public class TourGuideService {
 	private static final String tripPricerApiKey = "test-server-api-key";
 	// Database connection will be used for external users, but for testing purposes
 	// internal users are provided and stored in memory
-	private final Map<String, User> internalUserMap = new HashMap<>();
+	private final Map<String, User> internalUserMap = new ConcurrentHashMap<>();
+	// same users by id, so that a user id is registered once whatever its name
+	private final Map<UUID, User> internalUsersById = new ConcurrentHashMap<>();
+	private static final String internalUserPrefix = "internalUser";
+	private final int internalUserNumber = InternalTestHelper.getInternalUserNumber();
+	private final long internalUserSeed = InternalTestHelper.getInternalUserSeed();
+	private final boolean lazyInternalUsers = InternalTestHelper.isLazyInternalUsers();
+	private final LocalDateTime internalUsersReferenceTime = LocalDateTime.ofInstant(
+			InternalTestHelper.getInternalUserReferenceTime(), ZoneOffset.UTC);
+	private volatile boolean internalUsersMaterialized = false;
+	private volatile boolean internalUsersDeferred = false;
+	private final CompletableFuture<Void> internalUsersLoaded = new CompletableFuture<>();
+
+	/**
+	 * Loads the internal test users in the background once the application is ready, when
+	 * their loading was deferred. Users requested meanwhile are generated on demand, as lazy
+	 * internal users are, and the tracker is woken up as soon as all of them are loaded.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadDeferredInternalUsers() {
+		if (!internalUsersDeferred) {
+			return;
+		}
+		Thread loader = new Thread(() -> {
+			long start = System.nanoTime();
+			initializeInternalUsers();
+			internalUsersDeferred = false;
+			internalUsersLoaded.complete(null);
+			logger.info("Initialized " + internalUserNumber + " internal test users in "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms after startup");
+			tracker.wakeUp();
+		}, "internal-users-loader");
+		loader.setDaemon(true);
+		loader.start();
+	}
+
+	/**
+	 * @return A future completed once the internal test users are loaded
+	 */
+	public CompletableFuture<Void> getInternalUsersLoaded() {
+		return internalUsersLoaded;
+	}
 
 	private void initializeInternalUsers() {
-		IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-			String userName = "internalUser" + i;
-			String phone = "000";
-			String email = userName + "@tourGuide.com";
-			User user = new User(UUID.randomUUID(), userName, phone, email);
-			generateUserLocationHistory(user);
-
-			internalUserMap.put(userName, user);
-		});
-		logger.debug("Created " + InternalTestHelper.getInternalUserNumber() + " internal test users.");
+		if (lazyInternalUsers) {
+			logger.debug(internalUserNumber + " internal test users will be created on first access.");
+			return;
+		}
+		materializeInternalUsers();
+		logger.debug("Created " + internalUserNumber + " internal test users.");
 	}
 
-	private void generateUserLocationHistory(User user) {
+	/**
+	 * Generates every internal user not generated yet, in parallel. Each user only depends
+	 * on its index and the seed, so lazy and eager generation give the same users.
+	 */
+	private void materializeInternalUsers() {
+		IntStream.range(0, internalUserNumber).parallel().forEach(i ->
+				internalUserMap.computeIfAbsent(internalUserPrefix + i, userName -> generateInternalUser(i)));
+		internalUsersMaterialized = true;
+	}
+
+	private void materializeInternalUsersIfLazy() {
+		if (testMode && lazyInternalUsers && !internalUsersMaterialized) {
+			materializeInternalUsers();
+		}
+	}
+
+	private User getOrMaterializeInternalUser(String userName) {
+		if (!testMode || !(lazyInternalUsers || internalUsersDeferred) || userName == null || !userName.startsWith(internalUserPrefix)) {
+			return null;
+		}
+		String index = userName.substring(internalUserPrefix.length());
+		if (index.isEmpty() || index.length() > 9 || !index.chars().allMatch(Character::isDigit)
+				|| (index.length() > 1 && index.charAt(0) == '0')) {
+			return null;
+		}
+		int i = Integer.parseInt(index);
+		return i < internalUserNumber ? internalUserMap.computeIfAbsent(userName, name -> generateInternalUser(i)) : null;
+	}
+
+	private User generateInternalUser(int index) {
+		SplittableRandom random = new SplittableRandom(mixSeed(internalUserSeed + index));
+		String userName = internalUserPrefix + index;
+		String phone = "000";
+		String email = userName + "@tourGuide.com";
+		User user = new User(generateRandomUserId(random), userName, phone, email);
+		generateUserLocationHistory(user, random);
+		internalUsersById.putIfAbsent(user.getUserId(), user);
+		return user;
+	}
+
+	private void generateUserLocationHistory(User user, SplittableRandom random) {
 		IntStream.range(0, 3).forEach(i -> {
 			user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
-					new Location(generateRandomLatitude(), generateRandomLongitude()), getRandomTime()));
+					new Location(generateRandomLatitude(random), generateRandomLongitude(random)), getRandomTime(random)));
 		});
 	}
 
-	private double generateRandomLongitude() {
+	private UUID generateRandomUserId(SplittableRandom random) {
+		// same layout as UUID.randomUUID(): version 4, IETF variant
+		long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+		long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+	private double generateRandomLongitude(SplittableRandom random) {
 		double leftLimit = -180;
 		double rightLimit = 180;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
+		return leftLimit + random.nextDouble() * (rightLimit - leftLimit);
 	}
 
-	private double generateRandomLatitude() {
+	private double generateRandomLatitude(SplittableRandom random) {
 		double leftLimit = -85.05112878;
 		double rightLimit = 85.05112878;
-		return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
+		return leftLimit + random.nextDouble() * (rightLimit - leftLimit);
 	}
 
-	private Date getRandomTime() {
-		LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
+	private Date getRandomTime(SplittableRandom random) {
+		LocalDateTime localDateTime = internalUsersReferenceTime.minusDays(random.nextInt(30));
 		return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
 	}
 
+	/**
+	 * Murmur3 finalizer, turns consecutive user indexes into unrelated generator seeds.
+	 */
+	private static long mixSeed(long seed) {
+		seed ^= seed >>> 33;
+		seed *= 0xff51afd7ed558ccdL;
+		seed ^= seed >>> 33;
+		seed *= 0xc4ceb9fe1a85ec53L;
+		seed ^= seed >>> 33;
+		return seed;
+	}
+
 }
@@ -0,0 +1,157 @@
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.scheduling.Priority;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Background pipeline keeping the trip deals of users priced ahead of their requests.
+ *
+ * Users whose reward points or preferences changed are marked dirty; a scheduler takes at
+ * most batchSize of them per interval and prices their deals on a dedicated pool, as bulk
+ * work so that interactive calls keep their share of TripPricer. A user marked several
+ * times before its turn is priced once. Users whose pricing failed are retried with the
+ * next batches.
+ */
+public class TripDealPrecomputer implements RewardListener {
+	private Logger logger = LoggerFactory.getLogger(TripDealPrecomputer.class);
+	private final TourGuideService tourGuideService;
+	private final int batchSize;
+	private final Duration maxStaleness;
+	private final Map<UUID, User> dirtyUsers = new ConcurrentHashMap<>();
+	private final ExecutorService pool;
+	private final AtomicLong pricedUsers = new AtomicLong();
+	private final AtomicLong failedUsers = new AtomicLong();
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * @param tourGuideService The service pricing and storing the deals
+	 * @param threads Size of the pricing pool
+	 * @param batchSize Most users priced per batch
+	 * @param maxStaleness Longest time deals priced for outdated points or preferences may still be served
+	 */
+	public TripDealPrecomputer(TourGuideService tourGuideService, int threads, int batchSize, Duration maxStaleness) {
+		this.tourGuideService = tourGuideService;
+		this.batchSize = batchSize;
+		this.maxStaleness = maxStaleness;
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "trip-deals-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Prices a batch of dirty users periodically on a background thread.
+	 *
+	 * @param batchInterval Delay between the end of a batch and the start of the next one
+	 */
+	public synchronized void start(Duration batchInterval) {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "trip-deals-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::priceBatchQuietly, batchInterval.toMillis(), batchInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Marks the deals of a user for repricing. Does not block.
+	 *
+	 * @param user The user whose reward points or preferences changed
+	 */
+	public void markDirty(User user) {
+		dirtyUsers.put(user.getUserId(), user);
+	}
+
+	@Override
+	public void onRewardGranted(User user, UserReward reward) {
+		markDirty(user);
+	}
+
+	/**
+	 * Prices the deals of at most batchSize dirty users and waits for them.
+	 *
+	 * @return The number of users priced
+	 */
+	public int priceBatch() {
+		List<User> batch = new ArrayList<>(batchSize);
+		for (Iterator<User> users = dirtyUsers.values().iterator(); users.hasNext() && batch.size() < batchSize;) {
+			batch.add(users.next());
+			users.remove();
+		}
+		List<CompletableFuture<Void>> pricings = batch.stream()
+				.map(user -> CompletableFuture.runAsync(() -> Priority.BULK.run(() -> priceQuietly(user)), pool))
+				.toList();
+		CompletableFuture.allOf(pricings.toArray(new CompletableFuture<?>[0])).join();
+		return batch.size();
+	}
+
+	public int getDirtyUserCount() {
+		return dirtyUsers.size();
+	}
+
+	public long getPricedUserCount() {
+		return pricedUsers.get();
+	}
+
+	public long getFailedUserCount() {
+		return failedUsers.get();
+	}
+
+	public Duration getMaxStaleness() {
+		return maxStaleness;
+	}
+
+	public synchronized void shutdown() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+		pool.shutdownNow();
+	}
+
+	private void priceQuietly(User user) {
+		try {
+			tourGuideService.priceTripDeals(user);
+			pricedUsers.incrementAndGet();
+		} catch (RuntimeException e) {
+			failedUsers.incrementAndGet();
+			dirtyUsers.putIfAbsent(user.getUserId(), user);
+			logger.debug("Trip deals of " + user.getUserName() + " could not be priced, retrying later: " + e.getMessage());
+		}
+	}
+
+	private void priceBatchQuietly() {
+		try {
+			int priced = priceBatch();
+			if (priced > 0) {
+				logger.debug("Priced the trip deals of " + priced + " users, " + dirtyUsers.size() + " left");
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Trip deal batch failed, retrying at next batch", e);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.openclassrooms.tourguide.service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Serializes the writes to each user: every user is hashed onto one of a fixed set of lanes,
+ * single threads running their tasks in submission order. Writes for one user never run
+ * concurrently, so users need no locking, while users of different lanes are updated in
+ * parallel.
+ *
+ * Lane tasks must stay short and never call an upstream service: the slow part of an update
+ * runs on the caller's thread and only the resulting write is handed to the lane. A task
+ * submitted from the user's own lane runs inline instead of waiting behind itself.
+ */
+public class UserLanes {
+	private final ExecutorService[] lanes;
+	private final Thread[] laneThreads;
+
+	/**
+	 * @param laneCount Number of lanes, typically the number of processors
+	 */
+	public UserLanes(int laneCount) {
+		lanes = new ExecutorService[laneCount];
+		laneThreads = new Thread[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			int lane = i;
+			lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "user-lane-" + lane);
+				thread.setDaemon(true);
+				// visible to the lane thread itself, started after this write: the only one comparing equal
+				laneThreads[lane] = thread;
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Runs a write on the lane of a user.
+	 *
+	 * @param user The user updated by the task
+	 * @param task The update
+	 * @return A future completed with the result of the task once it ran
+	 */
+	public <T> CompletableFuture<T> submit(User user, Supplier<T> task) {
+		int lane = laneOf(user.getUserId());
+		if (Thread.currentThread() == laneThreads[lane]) {
+			try {
+				return CompletableFuture.completedFuture(task.get());
+			} catch (RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		return CompletableFuture.supplyAsync(task, lanes[lane]);
+	}
+
+	/**
+	 * Runs a write on the lane of a user without waiting for it.
+	 *
+	 * @param user The user updated by the task
+	 * @param task The update
+	 */
+	public void execute(User user, Runnable task) {
+		int lane = laneOf(user.getUserId());
+		if (Thread.currentThread() == laneThreads[lane]) {
+			task.run();
+		} else {
+			lanes[lane].execute(task);
+		}
+	}
+
+	/**
+	 * Runs a write on the lane of a user and waits for its result.
+	 *
+	 * @param user The user updated by the task
+	 * @param task The update
+	 * @return The result of the task
+	 */
+	public <T> T call(User user, Supplier<T> task) {
+		return submit(user, task).join();
+	}
+
+	/**
+	 * Runs a write on the lane of a user and waits for it.
+	 *
+	 * @param user The user updated by the task
+	 * @param task The update
+	 */
+	public void run(User user, Runnable task) {
+		call(user, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Stops the lanes once the pending writes are done.
+	 */
+	public void shutdown() {
+		for (ExecutorService lane : lanes) {
+			lane.shutdown();
+		}
+	}
+
+	private int laneOf(UUID userId) {
+		// spreads the bits of the id, whose hash code alone clusters on some lane counts
+		long hash = (userId.getMostSignificantBits() ^ userId.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+		return (int) ((hash >>> 32) % lanes.length);
+	}
+}
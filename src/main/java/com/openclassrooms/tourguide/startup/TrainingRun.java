@@ -0,0 +1,76 @@
+package com.openclassrooms.tourguide.startup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+/**
+ * Training run of the fast-start build: once the application is ready, waits for the
+ * internal users, calls each endpoint once so that the classes of a first request are
+ * loaded too, then exits. Run with -XX:ArchiveClassesAtExit, the JVM dumps every class
+ * loaded so far into the AppCDS archive used by the following starts.
+ */
+public class TrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+	private static final List<String> ENDPOINTS = List.of("/getLocation", "/getNearbyAttractions", "/getRewards",
+			"/getTripDeals");
+
+	private final Logger logger = LoggerFactory.getLogger(TrainingRun.class);
+	private final boolean enabled;
+	private final TourGuideService tourGuideService;
+	private final String userName;
+
+	public TrainingRun(boolean enabled, TourGuideService tourGuideService, String userName) {
+		this.enabled = enabled;
+		this.tourGuideService = tourGuideService;
+		this.userName = userName;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (!enabled) {
+			return;
+		}
+		ConfigurableApplicationContext context = event.getApplicationContext();
+		Thread runner = new Thread(() -> {
+			int exitCode = 0;
+			try {
+				tourGuideService.getInternalUsersLoaded().get(5, TimeUnit.MINUTES);
+				exercise(((WebServerApplicationContext) context).getWebServer().getPort());
+			} catch (Exception e) {
+				logger.error("Training run failed", e);
+				exitCode = 1;
+			}
+			int code = exitCode;
+			System.exit(SpringApplication.exit(context, () -> code));
+		}, "training-run");
+		runner.start();
+	}
+
+	private void exercise(int port) throws Exception {
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+		for (String endpoint : ENDPOINTS) {
+			HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+					.uri(URI.create("http://localhost:" + port + endpoint + "?userName=" + userName))
+					.timeout(Duration.ofSeconds(30))
+					.build(), HttpResponse.BodyHandlers.ofString());
+			logger.info("Training run " + endpoint + ": " + response.statusCode());
+			if (response.statusCode() != 200) {
+				throw new IllegalStateException(endpoint + " answered " + response.statusCode());
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package com.openclassrooms.tourguide.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only store of byte records in memory-mapped segment files.
+ *
+ * Records are appended to the current segment until it is full, then a new segment is
+ * created; a record larger than the segment size gets a segment of its own. Reads copy the
+ * record out of the mapping, so the operating system pages the files in and out instead of
+ * the heap holding them. A segment file is deleted once every record written to it was
+ * freed. The files only live as long as the store: {@link #close()} deletes them along with
+ * the directory, which belongs to the store.
+ */
+public class SegmentFileStore implements AutoCloseable {
+	private final Path directory;
+	private final int segmentSize;
+	private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+	private final AtomicLong liveBytes = new AtomicLong();
+	private Segment current;
+	private int nextSegmentId;
+
+	/**
+	 * @param directory Directory of the segment files, created if missing and deleted on close
+	 * @param segmentSize Size of a segment file in bytes
+	 */
+	public SegmentFileStore(Path directory, int segmentSize) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Where a record was written.
+	 *
+	 * @param segment Id of the segment file
+	 * @param offset Position of the record in the segment
+	 * @param length Length of the record
+	 */
+	public record Slot(int segment, int offset, int length) {
+	}
+
+	/**
+	 * @param record The bytes to store
+	 * @return Where they were written
+	 */
+	public Slot write(byte[] record) {
+		Segment segment;
+		int offset;
+		synchronized (this) {
+			if (current == null || current.capacity() - current.written < record.length) {
+				if (current != null) {
+					current.sealed = true;
+					deleteIfFree(current);
+				}
+				current = createSegment(Math.max(segmentSize, record.length));
+			}
+			segment = current;
+			offset = segment.written;
+			segment.written += record.length;
+			segment.liveBytes.addAndGet(record.length);
+		}
+		segment.buffer.put(offset, record);
+		liveBytes.addAndGet(record.length);
+		return new Slot(segment.id, offset, record.length);
+	}
+
+	/**
+	 * @param slot Where the record was written
+	 * @return A copy of the record
+	 */
+	public byte[] read(Slot slot) {
+		Segment segment = segments.get(slot.segment());
+		if (segment == null) {
+			throw new IllegalStateException("Segment " + slot.segment() + " was deleted");
+		}
+		byte[] record = new byte[slot.length()];
+		segment.buffer.get(slot.offset(), record);
+		return record;
+	}
+
+	/**
+	 * Marks a record as no longer needed, the slot must not be read afterwards.
+	 *
+	 * @param slot Where the record was written
+	 */
+	public void free(Slot slot) {
+		Segment segment = segments.get(slot.segment());
+		if (segment == null) {
+			return;
+		}
+		liveBytes.addAndGet(-slot.length());
+		segment.liveBytes.addAndGet(-slot.length());
+		synchronized (this) {
+			if (segment.sealed) {
+				deleteIfFree(segment);
+			}
+		}
+	}
+
+	/**
+	 * @return The bytes of the records not freed yet
+	 */
+	public long getLiveBytes() {
+		return liveBytes.get();
+	}
+
+	/**
+	 * @return The size of the segment files
+	 */
+	public long getFileBytes() {
+		return segments.values().stream().mapToLong(Segment::capacity).sum();
+	}
+
+	/**
+	 * Deletes every segment file and the directory.
+	 */
+	@Override
+	public synchronized void close() {
+		for (Segment segment : segments.values()) {
+			delete(segment);
+		}
+		current = null;
+		try {
+			Files.deleteIfExists(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot delete segment directory " + directory, e);
+		}
+	}
+
+	private Segment createSegment(int size) {
+		int id = nextSegmentId++;
+		Path file = directory.resolve("users-" + id + ".seg");
+		try {
+			Files.createDirectories(directory);
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+				// the mapping stays valid once the channel is closed
+				Segment segment = new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+				segments.put(id, segment);
+				return segment;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot create segment file " + file, e);
+		}
+	}
+
+	private void deleteIfFree(Segment segment) {
+		if (segment.liveBytes.get() == 0) {
+			delete(segment);
+		}
+	}
+
+	private void delete(Segment segment) {
+		segments.remove(segment.id);
+		try {
+			// the mapping is released when the buffer is garbage collected
+			Files.deleteIfExists(segment.file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot delete segment file " + segment.file, e);
+		}
+	}
+
+	private static final class Segment {
+		final int id;
+		final Path file;
+		final MappedByteBuffer buffer;
+		final AtomicLong liveBytes = new AtomicLong();
+		// guarded by the store
+		int written;
+		boolean sealed;
+
+		Segment(int id, Path file, MappedByteBuffer buffer) {
+			this.id = id;
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		int capacity() {
+			return buffer.capacity();
+		}
+	}
+}
@@ -3,21 +3,25 @@ package com.openclassrooms.tourguide.tracker;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.openclassrooms.tourguide.jfr.TrackerCycleEvent;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 
 public class Tracker extends Thread {
 	private Logger logger = LoggerFactory.getLogger(Tracker.class);
 	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
+	private static final int trackingChunkSize = 1000;
 	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
 	private final TourGuideService tourGuideService;
-	private boolean stop = false;
+	private final Semaphore wakeUpSignal = new Semaphore(0);
+	private volatile boolean stop = false;
 
 	public Tracker(TourGuideService tourGuideService) {
 		this.tourGuideService = tourGuideService;
@@ -33,6 +37,14 @@ public class Tracker extends Thread {
 		executorService.shutdownNow();
 	}
 
+	/**
+	 * Starts the next tracking cycle without waiting for the end of the polling interval,
+	 * e.g. after the cluster partitions were rebalanced.
+	 */
+	public void wakeUp() {
+		wakeUpSignal.release();
+	}
+
 	@Override
 	public void run() {
 		StopWatch stopWatch = new StopWatch();
@@ -42,16 +54,30 @@ public class Tracker extends Thread {
 				break;
 			}
 
-			List<User> users = tourGuideService.getAllUsers();
+			TrackerCycleEvent cycle = new TrackerCycleEvent();
+			cycle.begin();
+			List<User> users = tourGuideService.getOwnedUsers();
 			logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
 			stopWatch.start();
-			users.forEach(u -> tourGuideService.trackUserLocation(u));
+			// users are tracked in parallel, by chunks so that stopping does not wait for a whole cycle
+			for (int from = 0; from < users.size() && !stop; from += trackingChunkSize) {
+				cycle.chunks++;
+				try {
+					tourGuideService.trackAllUsersLocationAsync(users.subList(from, Math.min(from + trackingChunkSize, users.size())));
+				} catch (RuntimeException e) {
+					cycle.failedChunks++;
+					logger.warn("Some users could not be tracked: " + e.getMessage());
+				}
+			}
+			cycle.users = users.size();
+			cycle.commit();
 			stopWatch.stop();
 			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
 			stopWatch.reset();
 			try {
 				logger.debug("Tracker sleeping");
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
+				wakeUpSignal.tryAcquire(trackingPollingInterval, TimeUnit.SECONDS);
+				wakeUpSignal.drainPermits();
 			} catch (InterruptedException e) {
 				break;
 			}
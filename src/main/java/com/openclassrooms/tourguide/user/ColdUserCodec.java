@@ -0,0 +1,131 @@
+package com.openclassrooms.tourguide.user;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.user.LocationHistory.Segment;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Binary form of the history and rewards of a paged out user.
+ *
+ * History segments keep their compacted flag. A rewarded location is written as its index in
+ * the history, so that it is still the same object as the history's once decoded and stays
+ * pinned by compaction. Attractions are shared by every user and are not written: they are
+ * referred to by their index in a list kept on the heap, and the visited locations of the
+ * user share its id.
+ */
+final class ColdUserCodec {
+
+	private ColdUserCodec() {
+	}
+
+	record Decoded(LocationHistory history, List<UserReward> rewards) {
+	}
+
+	/**
+	 * @param history The history to write
+	 * @param rewards The rewards to write
+	 * @param attractions Receives the attractions of the rewards, to pass back to {@link #decode}
+	 * @return The encoded history and rewards
+	 */
+	static byte[] encode(LocationHistory history, List<UserReward> rewards, List<Attraction> attractions) {
+		List<Segment> segments = history.segments();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + history.size() * 40);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			Map<VisitedLocation, Integer> indexes = new IdentityHashMap<>();
+			out.writeInt(segments.size());
+			for (Segment segment : segments) {
+				out.writeBoolean(segment.compacted());
+				out.writeInt(segment.size());
+				for (VisitedLocation visitedLocation : segment.locations()) {
+					indexes.put(visitedLocation, indexes.size());
+					writeLocation(out, visitedLocation);
+				}
+			}
+			out.writeInt(rewards.size());
+			for (UserReward reward : rewards) {
+				Integer index = indexes.get(reward.visitedLocation);
+				out.writeInt(index == null ? -1 : index);
+				if (index == null) {
+					writeLocation(out, reward.visitedLocation);
+				}
+				int attraction = attractions.indexOf(reward.attraction);
+				if (attraction < 0) {
+					attraction = attractions.size();
+					attractions.add(reward.attraction);
+				}
+				out.writeInt(attraction);
+				out.writeInt(reward.getRewardPoints());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param record Bytes returned by {@link #encode}
+	 * @param attractions The attractions filled by {@link #encode}
+	 * @param userId The id of the user
+	 * @return The history and rewards
+	 */
+	static Decoded decode(byte[] record, List<Attraction> attractions, UUID userId) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+			List<VisitedLocation> locations = new ArrayList<>();
+			List<Segment> segments = new ArrayList<>();
+			int segmentCount = in.readInt();
+			for (int i = 0; i < segmentCount; i++) {
+				boolean compacted = in.readBoolean();
+				VisitedLocation[] segment = new VisitedLocation[in.readInt()];
+				for (int j = 0; j < segment.length; j++) {
+					segment[j] = readLocation(in, userId);
+					locations.add(segment[j]);
+				}
+				segments.add(new Segment(segment, compacted));
+			}
+			int rewardCount = in.readInt();
+			List<UserReward> rewards = new ArrayList<>(rewardCount);
+			for (int i = 0; i < rewardCount; i++) {
+				int index = in.readInt();
+				VisitedLocation visitedLocation = index < 0 ? readLocation(in, userId) : locations.get(index);
+				Attraction attraction = attractions.get(in.readInt());
+				rewards.add(new UserReward(visitedLocation, attraction, in.readInt()));
+			}
+			return new Decoded(LocationHistory.of(segments), rewards);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeLocation(DataOutputStream out, VisitedLocation visitedLocation) throws IOException {
+		out.writeLong(visitedLocation.userId.getMostSignificantBits());
+		out.writeLong(visitedLocation.userId.getLeastSignificantBits());
+		out.writeDouble(visitedLocation.location.latitude);
+		out.writeDouble(visitedLocation.location.longitude);
+		out.writeLong(visitedLocation.timeVisited.getTime());
+	}
+
+	private static VisitedLocation readLocation(DataInputStream in, UUID userId) throws IOException {
+		long mostSignificantBits = in.readLong();
+		long leastSignificantBits = in.readLong();
+		UUID locationUserId = mostSignificantBits == userId.getMostSignificantBits()
+				&& leastSignificantBits == userId.getLeastSignificantBits() ? userId
+						: new UUID(mostSignificantBits, leastSignificantBits);
+		Location location = new Location(in.readDouble(), in.readDouble());
+		return new VisitedLocation(locationUserId, location, new Date(in.readLong()));
+	}
+}
@@ -0,0 +1,350 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import com.openclassrooms.tourguide.geo.BoundingBox;
+import com.openclassrooms.tourguide.geo.TrajectorySimplifier;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Visited locations of a user, ordered by visit time and split into segments of at most
+ * {@link #SEGMENT_CAPACITY} locations. Each segment knows its time range and the bounding box
+ * of its locations, so that time-window queries binary search the segments and bounding box
+ * queries skip the segments that cannot match.
+ *
+ * Segments are immutable: a write publishes a new state, so readers never lock and always see
+ * a consistent history. Locations arriving out of order are inserted at their place in time.
+ *
+ * Old history can be compacted: its segments are replaced by compacted ones holding a
+ * simplified trajectory, and are not simplified again by later passes.
+ */
+public class LocationHistory {
+	static final int SEGMENT_CAPACITY = 256;
+	// VisitedLocation, Location and Date objects plus the reference and time kept by the segment
+	public static final long ESTIMATED_BYTES_PER_LOCATION = 92;
+
+	private volatile State state = State.EMPTY;
+
+	public synchronized void add(VisitedLocation visitedLocation) {
+		Segment[] segments = state.segments;
+		long time = visitedLocation.timeVisited.getTime();
+		int last = segments.length - 1;
+		if (last < 0 || (time >= segments[last].lastTime()
+				&& (segments[last].size() == SEGMENT_CAPACITY || segments[last].compacted()))) {
+			Segment[] updated = Arrays.copyOf(segments, segments.length + 1);
+			updated[segments.length] = new Segment(new VisitedLocation[] { visitedLocation });
+			state = new State(updated);
+			return;
+		}
+
+		int index = Math.max(0, lastSegmentStartingAtOrBefore(segments, time));
+		Segment[] split = segments[index].insert(visitedLocation);
+		Segment[] updated = new Segment[segments.length + split.length - 1];
+		System.arraycopy(segments, 0, updated, 0, index);
+		System.arraycopy(split, 0, updated, index, split.length);
+		System.arraycopy(segments, index + 1, updated, index + split.length, segments.length - index - 1);
+		state = new State(updated);
+	}
+
+	public synchronized void clear() {
+		state = State.EMPTY;
+	}
+
+	public int size() {
+		return state.size;
+	}
+
+	/**
+	 * @return The segments of the history, oldest first
+	 */
+	List<Segment> segments() {
+		return List.of(state.segments);
+	}
+
+	/**
+	 * @param segments Segments ordered by time, as returned by {@link #segments()}
+	 * @return A history made of the segments
+	 */
+	static LocationHistory of(List<Segment> segments) {
+		LocationHistory history = new LocationHistory();
+		history.state = new State(segments.toArray(new Segment[0]));
+		return history;
+	}
+
+	/**
+	 * Simplifies the locations visited before a date that were not compacted yet. Pinned
+	 * locations are always kept, along with the path through them.
+	 *
+	 * @param olderThan Only segments entirely visited before this date are compacted
+	 * @param simplifier The simplification applied to the old trajectory
+	 * @param pinned Locations that must be kept
+	 * @return The number of locations removed
+	 */
+	public synchronized int compact(Date olderThan, TrajectorySimplifier simplifier, Set<VisitedLocation> pinned) {
+		Segment[] segments = state.segments;
+		int compacted = 0;
+		while (compacted < segments.length && segments[compacted].compacted()) {
+			compacted++;
+		}
+		int old = Math.max(compacted, firstSegmentEndingAtOrAfter(segments, olderThan.getTime()));
+		if (old == compacted) {
+			return 0;
+		}
+
+		List<VisitedLocation> trajectory = new ArrayList<>();
+		for (int i = compacted; i < old; i++) {
+			trajectory.addAll(Arrays.asList(segments[i].locations()));
+		}
+		List<VisitedLocation> simplified = new ArrayList<>();
+		int pieceStart = 0;
+		for (int i = 1; i < trajectory.size(); i++) {
+			if (i == trajectory.size() - 1 || pinned.contains(trajectory.get(i))) {
+				// pieces share their pinned ends, which are added once
+				List<VisitedLocation> piece = simplifier.simplify(trajectory.subList(pieceStart, i + 1));
+				simplified.addAll(pieceStart == 0 ? piece : piece.subList(1, piece.size()));
+				pieceStart = i;
+			}
+		}
+		if (trajectory.size() == 1) {
+			simplified.addAll(trajectory);
+		}
+
+		List<Segment> updated = new ArrayList<>(Arrays.asList(segments).subList(0, compacted));
+		for (int start = 0; start < simplified.size(); start += SEGMENT_CAPACITY) {
+			List<VisitedLocation> chunk = simplified.subList(start, Math.min(simplified.size(), start + SEGMENT_CAPACITY));
+			updated.add(new Segment(chunk.toArray(new VisitedLocation[0]), true));
+		}
+		updated.addAll(Arrays.asList(segments).subList(old, segments.length));
+		state = new State(updated.toArray(new Segment[0]));
+		return trajectory.size() - simplified.size();
+	}
+
+	/**
+	 * @return The most recently visited location, or null if the history is empty
+	 */
+	public VisitedLocation latest() {
+		Segment[] segments = state.segments;
+		if (segments.length == 0) {
+			return null;
+		}
+		Segment last = segments[segments.length - 1];
+		return last.locations()[last.size() - 1];
+	}
+
+	/**
+	 * @return The current history, oldest first, as an unmodifiable list that later writes don't change
+	 */
+	public List<VisitedLocation> asList() {
+		return new Snapshot(state);
+	}
+
+	/**
+	 * Gets the locations visited during a time window.
+	 *
+	 * @param from Start of the window, inclusive, or null for no lower bound
+	 * @param to End of the window, inclusive, or null for no upper bound
+	 * @return The matching locations, oldest first
+	 */
+	public List<VisitedLocation> between(Date from, Date to) {
+		return query(null, from, to);
+	}
+
+	/**
+	 * Gets the locations visited inside a bounding box, optionally during a time window.
+	 *
+	 * @param box The area to search
+	 * @param from Start of the window, inclusive, or null for no lower bound
+	 * @param to End of the window, inclusive, or null for no upper bound
+	 * @return The matching locations, oldest first
+	 */
+	public List<VisitedLocation> within(BoundingBox box, Date from, Date to) {
+		return query(box, from, to);
+	}
+
+	private List<VisitedLocation> query(BoundingBox box, Date from, Date to) {
+		Segment[] segments = state.segments;
+		long fromTime = from == null ? Long.MIN_VALUE : from.getTime();
+		long toTime = to == null ? Long.MAX_VALUE : to.getTime();
+		List<VisitedLocation> result = new ArrayList<>();
+		for (int i = firstSegmentEndingAtOrAfter(segments, fromTime); i < segments.length; i++) {
+			Segment segment = segments[i];
+			if (segment.firstTime() > toTime) {
+				break;
+			}
+			if (box != null && !box.intersects(segment.bounds())) {
+				continue;
+			}
+			for (int j = segment.firstIndexAtOrAfter(fromTime); j < segment.size() && segment.times()[j] <= toTime; j++) {
+				VisitedLocation visitedLocation = segment.locations()[j];
+				if (box == null || box.contains(visitedLocation.location)) {
+					result.add(visitedLocation);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static int firstSegmentEndingAtOrAfter(Segment[] segments, long time) {
+		int low = 0;
+		int high = segments.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments[middle].lastTime() < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int lastSegmentStartingAtOrBefore(Segment[] segments, long time) {
+		int low = 0;
+		int high = segments.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments[middle].firstTime() <= time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low - 1;
+	}
+
+	/**
+	 * Locations of a segment, ordered by time, with their visit times and bounding box, and
+	 * whether they are the result of a compaction.
+	 */
+	record Segment(VisitedLocation[] locations, long[] times, BoundingBox bounds, boolean compacted) {
+
+		Segment(VisitedLocation[] locations) {
+			this(locations, false);
+		}
+
+		Segment(VisitedLocation[] locations, boolean compacted) {
+			this(locations, timesOf(locations), boundsOf(locations), compacted);
+		}
+
+		int size() {
+			return locations.length;
+		}
+
+		long firstTime() {
+			return times[0];
+		}
+
+		long lastTime() {
+			return times[times.length - 1];
+		}
+
+		int firstIndexAtOrAfter(long time) {
+			int low = 0;
+			int high = times.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (times[middle] < time) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * @return The segment with the location inserted after those visited at the same
+		 * time or earlier, split in two halves if it exceeds the capacity
+		 */
+		Segment[] insert(VisitedLocation visitedLocation) {
+			int index = firstIndexAtOrAfter(visitedLocation.timeVisited.getTime() + 1);
+			VisitedLocation[] inserted = new VisitedLocation[locations.length + 1];
+			System.arraycopy(locations, 0, inserted, 0, index);
+			inserted[index] = visitedLocation;
+			System.arraycopy(locations, index, inserted, index + 1, locations.length - index);
+			if (inserted.length <= SEGMENT_CAPACITY) {
+				return new Segment[] { new Segment(inserted, compacted) };
+			}
+			int half = inserted.length / 2;
+			return new Segment[] {
+					new Segment(Arrays.copyOfRange(inserted, 0, half), compacted),
+					new Segment(Arrays.copyOfRange(inserted, half, inserted.length), compacted) };
+		}
+
+		private static long[] timesOf(VisitedLocation[] locations) {
+			long[] times = new long[locations.length];
+			for (int i = 0; i < locations.length; i++) {
+				times[i] = locations[i].timeVisited.getTime();
+			}
+			return times;
+		}
+
+		private static BoundingBox boundsOf(VisitedLocation[] locations) {
+			double minLatitude = Double.POSITIVE_INFINITY;
+			double minLongitude = Double.POSITIVE_INFINITY;
+			double maxLatitude = Double.NEGATIVE_INFINITY;
+			double maxLongitude = Double.NEGATIVE_INFINITY;
+			for (VisitedLocation visitedLocation : locations) {
+				minLatitude = Math.min(minLatitude, visitedLocation.location.latitude);
+				minLongitude = Math.min(minLongitude, visitedLocation.location.longitude);
+				maxLatitude = Math.max(maxLatitude, visitedLocation.location.latitude);
+				maxLongitude = Math.max(maxLongitude, visitedLocation.location.longitude);
+			}
+			return new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+		}
+	}
+
+	/**
+	 * Segments of the history with the index of their first location.
+	 */
+	private static final class State {
+		static final State EMPTY = new State(new Segment[0]);
+
+		final Segment[] segments;
+		final int[] starts;
+		final int size;
+
+		State(Segment[] segments) {
+			this.segments = segments;
+			this.starts = new int[segments.length];
+			int size = 0;
+			for (int i = 0; i < segments.length; i++) {
+				starts[i] = size;
+				size += segments[i].size();
+			}
+			this.size = size;
+		}
+	}
+
+	private static final class Snapshot extends AbstractList<VisitedLocation> implements RandomAccess {
+		private final State state;
+
+		Snapshot(State state) {
+			this.state = state;
+		}
+
+		@Override
+		public VisitedLocation get(int index) {
+			if (index < 0 || index >= state.size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + state.size);
+			}
+			int segment = Arrays.binarySearch(state.starts, index);
+			if (segment < 0) {
+				segment = -segment - 2;
+			}
+			return state.segments[segment].locations()[index - state.starts[segment]];
+		}
+
+		@Override
+		public int size() {
+			return state.size;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import tripPricer.Provider;
+
+/**
+ * Trip deals of a user along with the reward points and preferences they were priced for.
+ *
+ * @param providers The deals
+ * @param rewardPoints Reward points of the user when the deals were priced
+ * @param numberOfAdults Number of adults of the priced trip
+ * @param numberOfChildren Number of children of the priced trip
+ * @param tripDuration Duration of the priced trip
+ * @param computedAt When the deals were priced, null if they never were
+ */
+public record TripDeals(
+		List<Provider> providers,
+		int rewardPoints,
+		int numberOfAdults,
+		int numberOfChildren,
+		int tripDuration,
+		Instant computedAt
+) {
+
+	public static final TripDeals NONE = new TripDeals(List.of(), 0, 0, 0, 0, null);
+
+	public boolean isComputed() {
+		return computedAt != null;
+	}
+
+	/**
+	 * @return true if the deals were priced for these reward points and preferences
+	 */
+	public boolean isFor(int rewardPoints, UserPreferences preferences) {
+		return isComputed() && this.rewardPoints == rewardPoints
+				&& numberOfAdults == preferences.getNumberOfAdults()
+				&& numberOfChildren == preferences.getNumberOfChildren()
+				&& tripDuration == preferences.getTripDuration();
+	}
+
+	/**
+	 * @return true if the deals were priced within maxAge
+	 */
+	public boolean isYoungerThan(Duration maxAge) {
+		return isComputed() && computedAt.plus(maxAge).isAfter(Instant.now());
+	}
+}
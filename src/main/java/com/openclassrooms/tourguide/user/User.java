@@ -1,8 +1,12 @@
 package com.openclassrooms.tourguide.user;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import com.openclassrooms.tourguide.storage.SegmentFileStore;
+
+import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
 
@@ -11,11 +15,20 @@ public class User {
 	private final String userName;
 	private String phoneNumber;
 	private String emailAddress;
-	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new CopyOnWriteArrayList<>();
-	private final List<UserReward> userRewards = new ArrayList<>();
+	// written on the lane of the user (see UserLanes), read without locking
+	private volatile Date latestLocationTimestamp;
+	// null while paged out to the cold copy; paged out and back in on the lane of the user
+	private volatile LocationHistory visitedLocations = new LocationHistory();
+	private volatile List<UserReward> userRewards = new CopyOnWriteArrayList<>();
+	private volatile ColdCopy coldCopy;
+	// kept on the heap so that tracking and the reward stage never page the history in
+	private final List<VisitedLocation> unrewardedLocations = new CopyOnWriteArrayList<>();
+	private final Set<String> rewardedAttractions = ConcurrentHashMap.newKeySet();
+	private volatile int rewardRulesVersion;
+	// written without synchronization, an approximate recency is enough to pick cold users
+	private long lastAccessMillis = System.currentTimeMillis();
 	private UserPreferences userPreferences = new UserPreferences();
-	private List<Provider> tripDeals = new ArrayList<>();
+	private volatile TripDeals tripDeals = TripDeals.NONE;
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
 		this.userId = userId;
 		this.userName = userName;
@@ -55,29 +68,112 @@ public class User {
 		return latestLocationTimestamp;
 	}
 	
+	/**
+	 * Appends a location; to a paged out user, to the tail kept on the heap along with its cold copy.
+	 */
 	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		unrewardedLocations.add(visitedLocation);
+		LocationHistory history = visitedLocations;
+		if (history != null) {
+			history.add(visitedLocation);
+		} else {
+			coldCopy.tail().add(visitedLocation);
+		}
 	}
 	
+	/**
+	 * @return The visited locations; of a paged out user, decoded from the cold store without paging it in
+	 */
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return history().asList();
+	}
+
+	/**
+	 * @return The history; of a paged out user, a copy decoded from the cold store without paging it in
+	 */
+	public LocationHistory getLocationHistory() {
+		return history();
 	}
 	
 	public void clearVisitedLocations() {
+		pageIn();
 		visitedLocations.clear();
+		unrewardedLocations.clear();
+	}
+
+	/**
+	 * @return The locations added since the reward stage last scanned them, oldest first
+	 */
+	public List<VisitedLocation> getUnrewardedLocations() {
+		return List.copyOf(unrewardedLocations);
+	}
+
+	/**
+	 * Marks locations as scanned by the reward stage.
+	 *
+	 * @param scanned Locations returned by {@link #getUnrewardedLocations()}
+	 * @param rulesVersion Version of the reward rules they were scanned with
+	 */
+	public void markRewardsCalculated(List<VisitedLocation> scanned, int rulesVersion) {
+		Set<VisitedLocation> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+		identities.addAll(scanned);
+		unrewardedLocations.removeAll(identities);
+		rewardRulesVersion = rulesVersion;
+	}
+
+	/**
+	 * @return Version of the reward rules the history was last scanned with in full
+	 */
+	public int getRewardRulesVersion() {
+		return rewardRulesVersion;
 	}
 	
-	public synchronized void addUserReward(UserReward reward) {
-		if (userRewards.stream().noneMatch(r ->
-				r.attraction.attractionName.equals(reward.attraction.attractionName))) {
-			userRewards.add(reward);
+	/**
+	 * Adds a reward unless the user was already rewarded for the attraction.
+	 *
+	 * @param reward The reward
+	 * @return true if the reward was granted
+	 */
+	public boolean addUserReward(UserReward reward) {
+		if (!rewardedAttractions.add(reward.attraction.attractionName)) {
+			return false;
+		}
+		List<UserReward> rewards = userRewards;
+		if (rewards != null) {
+			rewards.add(reward);
+		} else {
+			coldCopy.recentRewards().add(reward);
 		}
+		return true;
 	}
 
+	/**
+	 * @return The rewards; of a paged out user, decoded from the cold store without paging it in
+	 */
 	public List<UserReward> getUserRewards() {
-		synchronized(userRewards) {
-			return new ArrayList<>(userRewards);
+		return new ArrayList<>(rewards());
+	}
+
+	/**
+	 * @return The names of the attractions the user was rewarded for, kept on the heap when paged out
+	 */
+	public Set<String> getRewardedAttractions() {
+		return Collections.unmodifiableSet(rewardedAttractions);
+	}
+
+	/**
+	 * @return The total points of the rewards, without paging the rewards in
+	 */
+	public int getRewardPoints() {
+		List<UserReward> rewards = userRewards;
+		if (rewards == null) {
+			ColdCopy cold = coldCopy;
+			if (cold != null) {
+				return cold.rewardPoints() + cold.recentRewards().stream().mapToInt(UserReward::getRewardPoints).sum();
+			}
+			rewards = rewards();
 		}
+		return rewards.stream().mapToInt(UserReward::getRewardPoints).sum();
 	}
 	
 	public UserPreferences getUserPreferences() {
@@ -88,16 +184,176 @@ public class User {
 		this.userPreferences = userPreferences;
 	}
 
+	/**
+	 * @return The most recently visited location, or null if none, without paging the history in
+	 */
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		LocationHistory history = visitedLocations;
+		if (history == null) {
+			ColdCopy cold = coldCopy;
+			if (cold != null) {
+				VisitedLocation latest = cold.lastVisitedLocation();
+				for (VisitedLocation visitedLocation : cold.tail()) {
+					if (latest == null || !visitedLocation.timeVisited.before(latest.timeVisited)) {
+						latest = visitedLocation;
+					}
+				}
+				return latest;
+			}
+			history = history();
+		}
+		return history.latest();
 	}
 	
-	public void setTripDeals(List<Provider> tripDeals) {
+	public void setTripDeals(TripDeals tripDeals) {
 		this.tripDeals = tripDeals;
 	}
 	
 	public List<Provider> getTripDeals() {
+		return tripDeals.providers();
+	}
+
+	/**
+	 * @return The last priced trip deals with what they were priced for, {@link TripDeals#NONE} if none were
+	 */
+	public TripDeals getComputedTripDeals() {
 		return tripDeals;
 	}
 
+	/**
+	 * @return true if the history and rewards are in the cold store rather than on the heap
+	 */
+	public boolean isPagedOut() {
+		return visitedLocations == null;
+	}
+
+	/**
+	 * Marks the history and rewards as read by a query, which keeps them on the heap rather than
+	 * those of users who are only tracked.
+	 */
+	public void recordAccess() {
+		lastAccessMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return When the history or rewards were last queried, in epoch milliseconds
+	 */
+	public long getLastAccessMillis() {
+		return lastAccessMillis;
+	}
+
+	/**
+	 * @return Estimated heap held by the history and rewards; when paged out, by those added since
+	 */
+	public long getResidentBytes() {
+		LocationHistory history = visitedLocations;
+		List<UserReward> rewards = userRewards;
+		if (history == null || rewards == null) {
+			ColdCopy cold = coldCopy;
+			return cold == null ? 0 : cold.tail().size() * LocationHistory.ESTIMATED_BYTES_PER_LOCATION
+					+ cold.recentRewards().size() * UserReward.ESTIMATED_BYTES_PER_REWARD;
+		}
+		return history.size() * LocationHistory.ESTIMATED_BYTES_PER_LOCATION
+				+ rewards.size() * UserReward.ESTIMATED_BYTES_PER_REWARD;
+	}
+
+	/**
+	 * Moves the history and rewards to a store, from which {@link #pageIn()} brings them back.
+	 * The latest location and the reward points stay on the heap. The locations and rewards
+	 * added to a paged out user are merged into a new cold copy. Like any write, runs on the
+	 * lane of the user.
+	 *
+	 * @param store The cold store
+	 * @return The estimated heap released, 0 if nothing was left on the heap
+	 */
+	public long pageOut(SegmentFileStore store) {
+		long residentBytes = getResidentBytes();
+		if (residentBytes == 0) {
+			return 0;
+		}
+		ColdCopy previous = coldCopy;
+		ColdUserCodec.Decoded current = current();
+		List<Attraction> attractions = new ArrayList<>();
+		byte[] record = ColdUserCodec.encode(current.history(), current.rewards(), attractions);
+		coldCopy = new ColdCopy(store, store.write(record), List.copyOf(attractions), new CopyOnWriteArrayList<>(),
+				new CopyOnWriteArrayList<>(), current.history().latest(),
+				current.rewards().stream().mapToInt(UserReward::getRewardPoints).sum());
+		// readers finding the history gone find the cold copy
+		visitedLocations = null;
+		userRewards = null;
+		if (previous != null) {
+			previous.store().free(previous.slot());
+		}
+		return residentBytes;
+	}
+
+	/**
+	 * Brings the history and rewards of a paged out user back onto the heap, with the locations
+	 * and rewards added since. Like any write, runs on the lane of the user.
+	 */
+	public void pageIn() {
+		ColdCopy cold = coldCopy;
+		if (cold == null) {
+			return;
+		}
+		ColdUserCodec.Decoded decoded = decode(cold);
+		userRewards = new CopyOnWriteArrayList<>(decoded.rewards());
+		visitedLocations = decoded.history();
+		// readers finding the cold copy gone find the history
+		coldCopy = null;
+		cold.store().free(cold.slot());
+	}
+
+	private LocationHistory history() {
+		LocationHistory history = visitedLocations;
+		return history != null ? history : current().history();
+	}
+
+	private List<UserReward> rewards() {
+		List<UserReward> rewards = userRewards;
+		return rewards != null ? rewards : current().rewards();
+	}
+
+	/**
+	 * @return The history and rewards, decoded from the cold copy if paged out, without paging in
+	 */
+	private ColdUserCodec.Decoded current() {
+		while (true) {
+			LocationHistory history = visitedLocations;
+			List<UserReward> rewards = userRewards;
+			if (history != null && rewards != null) {
+				return new ColdUserCodec.Decoded(history, rewards);
+			}
+			ColdCopy cold = coldCopy;
+			if (cold != null) {
+				try {
+					return decode(cold);
+				} catch (IllegalStateException e) {
+					// paged in meanwhile and its segment deleted: the history is back
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * @return The cold copy with the tail and the recent rewards merged, on new objects
+	 */
+	private ColdUserCodec.Decoded decode(ColdCopy cold) {
+		ColdUserCodec.Decoded decoded = ColdUserCodec.decode(cold.store().read(cold.slot()), cold.attractions(),
+				userId);
+		cold.tail().forEach(decoded.history()::add);
+		List<UserReward> rewards = new ArrayList<>(decoded.rewards());
+		rewards.addAll(cold.recentRewards());
+		return new ColdUserCodec.Decoded(decoded.history(), rewards);
+	}
+
+	/**
+	 * Where the history and rewards of a paged out user are, with what is read without paging them
+	 * in, and the locations and rewards added since, written on the lane of the user.
+	 */
+	private record ColdCopy(SegmentFileStore store, SegmentFileStore.Slot slot, List<Attraction> attractions,
+			List<VisitedLocation> tail, List<UserReward> recentRewards, VisitedLocation lastVisitedLocation,
+			int rewardPoints) {
+	}
 }
@@ -4,6 +4,8 @@ import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 
 public class UserReward {
+	// the reward object and its reference, the attraction being shared
+	public static final long ESTIMATED_BYTES_PER_REWARD = 32;
 
 	public final VisitedLocation visitedLocation;
 	public final Attraction attraction;
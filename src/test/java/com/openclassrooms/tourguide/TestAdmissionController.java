@@ -0,0 +1,79 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.scheduling.AdmissionController;
+import com.openclassrooms.tourguide.scheduling.AdmissionPolicy;
+import com.openclassrooms.tourguide.scheduling.Priority;
+
+public class TestAdmissionController {
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+	private final AdmissionController admissionController = new AdmissionController(new AdmissionPolicy(2, 8, 0.25,
+			Duration.ofMillis(50), Duration.ofMillis(50), Duration.ofSeconds(1)));
+
+	@Test
+	public void bulkCallsLeaveTheReservedShareToInteractiveCalls() throws Exception {
+		for (int i = 0; i < 6; i++) {
+			assertTrue(admissionController.acquire(Priority.BULK));
+		}
+
+		assertFalse(admissionController.acquire(Priority.BULK));
+		assertTrue(admissionController.acquire(Priority.INTERACTIVE));
+		assertTrue(admissionController.acquire(Priority.INTERACTIVE));
+		assertFalse(admissionController.isOverloaded());
+		assertFalse(admissionController.acquire(Priority.INTERACTIVE));
+		assertTrue(admissionController.isOverloaded());
+	}
+
+	@Test
+	public void limitDecreasesOnSlowCallsAndRecoversOnFastOnes() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			admissionController.acquire(Priority.INTERACTIVE);
+			admissionController.release(SLOW, false);
+		}
+		assertEquals(2, admissionController.getLimit());
+
+		for (int i = 0; i < 100; i++) {
+			int permits = admissionController.getLimit();
+			for (int j = 0; j < permits; j++) {
+				admissionController.acquire(Priority.INTERACTIVE);
+			}
+			for (int j = 0; j < permits; j++) {
+				admissionController.release(FAST, false);
+			}
+		}
+		assertEquals(8, admissionController.getLimit());
+	}
+
+	@Test
+	public void waitingInteractiveCallIsAdmittedBeforeBulkCalls() throws Exception {
+		for (int i = 0; i < 8; i++) {
+			admissionController.acquire(Priority.INTERACTIVE);
+		}
+		boolean[] interactiveAdmitted = new boolean[1];
+		Thread interactive = new Thread(() -> {
+			try {
+				interactiveAdmitted[0] = admissionController.acquire(Priority.INTERACTIVE);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		interactive.start();
+		Thread.sleep(10);
+
+		admissionController.release(FAST, false);
+		interactive.join();
+
+		assertTrue(interactiveAdmitted[0]);
+		assertFalse(admissionController.acquire(Priority.BULK));
+	}
+}
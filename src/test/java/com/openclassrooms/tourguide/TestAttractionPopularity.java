@@ -0,0 +1,90 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.popularity.AttractionPopularity;
+import com.openclassrooms.tourguide.popularity.AttractionPopularityEntry;
+import com.openclassrooms.tourguide.popularity.SlidingWindowCounter;
+import com.openclassrooms.tourguide.popularity.SlidingWindowCounter.Window;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+public class TestAttractionPopularity {
+	private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+
+	@Test
+	public void countsSlideOutOfTheirWindow() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(now::get);
+		counter.increment();
+		now.addAndGet(TimeUnit.SECONDS.toMillis(30));
+		counter.increment();
+		counter.increment();
+		assertEquals(3, counter.sum(Window.MINUTE));
+
+		now.addAndGet(TimeUnit.SECONDS.toMillis(40));
+		assertEquals(2, counter.sum(Window.MINUTE));
+		assertEquals(3, counter.sum(Window.HOUR));
+
+		now.addAndGet(TimeUnit.MINUTES.toMillis(90));
+		counter.increment();
+		assertEquals(1, counter.sum(Window.MINUTE));
+		assertEquals(1, counter.sum(Window.HOUR));
+		assertEquals(4, counter.sum(Window.DAY));
+
+		now.addAndGet(TimeUnit.HOURS.toMillis(25));
+		assertEquals(0, counter.sum(Window.DAY));
+	}
+
+	@Test
+	public void countsVisitsRewardsAndNearbyAppearances() {
+		GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+		RewardsService rewardsService = new RewardsService(gpsGateway, (attractionId, userId) -> 100);
+		rewardsService.setProximityBuffer(1);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AttractionCatalog attractionCatalog = new AttractionCatalog(gpsGateway);
+		attractionCatalog.refresh();
+		AttractionPopularity popularity = new AttractionPopularity(attractionCatalog, rewardsService, meterRegistry,
+				now::get);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction first = gpsGateway.getAttractions().get(0);
+		Attraction second = gpsGateway.getAttractions().get(1);
+		VisitedLocation atFirst = new VisitedLocation(user.getUserId(), first, new Date());
+
+		popularity.onEvents(List.of(new LocationEvent(user, atFirst, false), new LocationEvent(user, atFirst, false),
+				new LocationEvent(user, new VisitedLocation(user.getUserId(), second, new Date()), false)));
+		popularity.onRewardGranted(user, new UserReward(atFirst, first, 100));
+		popularity.recordNearbyAttractions(List.of(
+				new NearbyAttractionDTO(second.attractionName, 0, 0, 0, 0, 0, 100)));
+
+		assertEquals(List.of(new AttractionPopularityEntry(first.attractionName, "1h", 2, 1, 0),
+				new AttractionPopularityEntry(second.attractionName, "1h", 1, 0, 1)),
+				popularity.getMostPopular(Window.HOUR, 10));
+		assertEquals(2.0, meterRegistry.get("tourguide.attraction.popularity")
+				.tag("attraction", first.attractionName).tag("event", "visit").tag("window", "24h")
+				.gauge().value());
+
+		now.addAndGet(TimeUnit.MINUTES.toMillis(2));
+		assertEquals(0, popularity.getMostPopular(Window.MINUTE, 1).get(0).visits());
+	}
+}
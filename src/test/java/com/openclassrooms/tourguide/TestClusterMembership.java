@@ -0,0 +1,99 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.cluster.ClusterMembership;
+import com.openclassrooms.tourguide.cluster.ClusterNode;
+import com.openclassrooms.tourguide.cluster.ConsistentHashRing;
+
+public class TestClusterMembership {
+
+	private static final ClusterNode NODE_A = new ClusterNode("a", "http://localhost:8081");
+	private static final ClusterNode NODE_B = new ClusterNode("b", "http://localhost:8082");
+	private static final ClusterNode NODE_C = new ClusterNode("c", "http://localhost:8083");
+
+	@Test
+	public void usersAreSpreadAcrossNodes() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE_A, NODE_B, NODE_C));
+
+		Map<ClusterNode, Long> usersPerNode = IntStream.range(0, 30000)
+				.mapToObj(i -> ring.ownerOf("internalUser" + i))
+				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+		assertEquals(3, usersPerNode.size());
+		usersPerNode.values().forEach(count -> assertTrue(count > 7000 && count < 13000));
+	}
+
+	@Test
+	public void onlyUsersOfTheNewNodeMoveWhenANodeJoins() {
+		ConsistentHashRing before = new ConsistentHashRing(List.of(NODE_A, NODE_B));
+		ConsistentHashRing after = new ConsistentHashRing(List.of(NODE_A, NODE_B, NODE_C));
+
+		IntStream.range(0, 10000).mapToObj(i -> "internalUser" + i).forEach(userName -> {
+			ClusterNode newOwner = after.ownerOf(userName);
+			assertTrue(newOwner.equals(NODE_C) || newOwner.equals(before.ownerOf(userName)));
+		});
+	}
+
+	@Test
+	public void standaloneNodeOwnsEveryUser() {
+		ClusterMembership membership = ClusterMembership.standalone();
+
+		assertTrue(membership.isStandalone());
+		assertTrue(membership.isLocal("internalUser1"));
+	}
+
+	@Test
+	public void membersFileChangesTriggerRebalancing() throws Exception {
+		Path membersFile = Files.createTempFile("tourguide-members", ".txt");
+		Files.writeString(membersFile, "a=http://localhost:8081\n");
+		ClusterMembership membership = new ClusterMembership("a", membersFile, Duration.ofHours(1));
+		AtomicInteger rebalances = new AtomicInteger();
+		membership.addRebalanceListener(rebalances::incrementAndGet);
+
+		assertTrue(membership.isLocal("internalUser1"));
+
+		Files.writeString(membersFile, "# two nodes\na=http://localhost:8081\nb=http://localhost:8082\n");
+		Files.setLastModifiedTime(membersFile, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+		membership.refresh();
+		membership.shutdown();
+		Files.delete(membersFile);
+
+		assertEquals(1, rebalances.get());
+		assertEquals(2, membership.getNodes().size());
+		long localUsers = IntStream.range(0, 1000).filter(i -> membership.isLocal("internalUser" + i)).count();
+		assertTrue(localUsers > 0 && localUsers < 1000);
+	}
+
+	@Test
+	public void missingMembersFileIsPickedUpOnceWritten() throws Exception {
+		Path membersFile = Files.createTempDirectory("tourguide-members").resolve("members.txt");
+		ClusterMembership membership = new ClusterMembership("a", membersFile, Duration.ofHours(1));
+
+		assertTrue(membership.isStandalone());
+		assertTrue(membership.isLocal("internalUser1"));
+
+		Files.writeString(membersFile, "a=http://localhost:8081\nb=http://localhost:8082\n");
+		membership.refresh();
+		membership.shutdown();
+		Files.delete(membersFile);
+		Files.delete(membersFile.getParent());
+
+		assertEquals(2, membership.getNodes().size());
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.ColdUserEvictor;
+import com.openclassrooms.tourguide.service.EvictionReport;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.storage.SegmentFileStore;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestColdUserEvictor {
+	private final GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+	private final RewardsService rewardsService = new RewardsService(gpsGateway, (attractionId, userId) -> 100);
+	private final SegmentFileStore store;
+
+	public TestColdUserEvictor() throws IOException {
+		store = new SegmentFileStore(Files.createTempDirectory("tourguide-test-"), 16 * 1024);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		store.close();
+		rewardsService.shutdown();
+	}
+
+	@Test
+	public void pagedOutUserIsReadWithoutPagingInUntilPagedBackIn() {
+		User user = userWithHistory("jon", 600);
+		VisitedLocation rewarded = user.getVisitedLocations().get(10);
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		user.addUserReward(new UserReward(rewarded, attraction, 100));
+		VisitedLocation latest = user.getLastVisitedLocation();
+
+		assertEquals(600 * LocationHistory.ESTIMATED_BYTES_PER_LOCATION + UserReward.ESTIMATED_BYTES_PER_REWARD,
+				user.pageOut(store));
+		assertTrue(user.isPagedOut());
+		assertEquals(0, user.getResidentBytes());
+		assertSame(latest, user.getLastVisitedLocation());
+		assertEquals(100, user.getRewardPoints());
+		assertTrue(user.isPagedOut());
+		assertTrue(store.getLiveBytes() > 600 * 40);
+
+		// reads decode the cold copy, only the lane of the user pages it in
+		assertEquals(600, user.getVisitedLocations().size());
+		assertEquals(1, user.getUserRewards().size());
+		assertTrue(user.isPagedOut());
+
+		user.pageIn();
+		List<VisitedLocation> history = user.getVisitedLocations();
+		assertFalse(user.isPagedOut());
+		assertEquals(600, history.size());
+		assertEquals(latest.timeVisited, history.get(599).timeVisited);
+		assertEquals(latest.location.latitude, history.get(599).location.latitude);
+		assertSame(user.getUserId(), history.get(0).userId);
+		UserReward reward = user.getUserRewards().get(0);
+		// still pinned by compaction, which matches rewarded locations by identity
+		assertSame(history.get(10), reward.visitedLocation);
+		assertSame(attraction, reward.attraction);
+		assertEquals(0, store.getLiveBytes());
+	}
+
+	@Test
+	public void trackingAndRewardsDoNotPageColdUsersIn() {
+		User user = userWithHistory("jon", 600);
+		rewardsService.calculateRewards(user);
+		long lastAccess = user.getLastAccessMillis();
+		user.pageOut(store);
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		VisitedLocation atAttraction = new VisitedLocation(user.getUserId(), attraction, new Date(1_000_000L * 600));
+
+		user.addToVisitedLocations(atAttraction);
+		rewardsService.calculateRewards(user);
+
+		assertTrue(user.isPagedOut());
+		assertSame(atAttraction, user.getLastVisitedLocation());
+		assertEquals(100, user.getRewardPoints());
+		assertEquals(LocationHistory.ESTIMATED_BYTES_PER_LOCATION + UserReward.ESTIMATED_BYTES_PER_REWARD,
+				user.getResidentBytes());
+		assertEquals(lastAccess, user.getLastAccessMillis());
+		assertEquals(601, user.getVisitedLocations().size());
+		assertEquals(List.of(attraction.attractionName),
+				user.getUserRewards().stream().map(reward -> reward.attraction.attractionName).toList());
+
+		// a later pass merges the tail into a new cold copy
+		assertEquals(LocationHistory.ESTIMATED_BYTES_PER_LOCATION + UserReward.ESTIMATED_BYTES_PER_REWARD,
+				user.pageOut(store));
+		assertEquals(0, user.getResidentBytes());
+		assertEquals(100, user.getRewardPoints());
+		assertEquals(atAttraction.timeVisited, user.getLastVisitedLocation().timeVisited);
+
+		user.pageIn();
+		assertFalse(user.isPagedOut());
+		assertEquals(601, user.getVisitedLocations().size());
+		// the rewarded location is still the history's, pinned by compaction
+		assertSame(user.getVisitedLocations().get(600), user.getUserRewards().get(0).visitedLocation);
+		assertEquals(0, store.getLiveBytes());
+	}
+
+	@Test
+	public void coldestUsersArePagedOutUntilUnderBudget() throws InterruptedException {
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsGateway, rewardsService,
+				(apiKey, tripId, adults, children, nightsStay, rewardsPoints) -> List.of());
+		tourGuideService.tracker.stopTracking();
+		try {
+			List<User> users = IntStream.range(0, 10).mapToObj(i -> userWithHistory("user" + i, 100)).toList();
+			for (User user : users) {
+				tourGuideService.addUser(user);
+				tourGuideService.getUserRewards(user);
+				Thread.sleep(2);
+			}
+			long userBytes = users.get(0).getResidentBytes();
+			ColdUserEvictor evictor = new ColdUserEvictor(tourGuideService, store, 4 * userBytes);
+
+			EvictionReport report = evictor.evict();
+
+			// paged out down to 90% of the budget
+			assertEquals(7, report.pagedOut());
+			assertEquals(3 * userBytes, report.residentBytes());
+			assertTrue(users.subList(0, 7).stream().allMatch(User::isPagedOut));
+			assertTrue(users.subList(7, 10).stream().noneMatch(User::isPagedOut));
+			assertEquals(0, evictor.evict().pagedOut());
+
+			users.forEach(tourGuideService::getUserRewards);
+			assertTrue(users.stream().noneMatch(User::isPagedOut));
+			assertEquals(100, users.get(0).getVisitedLocations().size());
+			assertEquals(0, store.getLiveBytes());
+		} finally {
+			tourGuideService.shutdown();
+		}
+	}
+
+	private static User userWithHistory(String userName, int locations) {
+		User user = new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com");
+		for (int i = 0; i < locations; i++) {
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(i * 0.01, -i * 0.01),
+					new Date(1_000_000L * i)));
+		}
+		return user;
+	}
+}
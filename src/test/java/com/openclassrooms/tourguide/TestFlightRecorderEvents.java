@@ -0,0 +1,67 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.jfr.CalculateRewardsEvent;
+import com.openclassrooms.tourguide.jfr.TrackLocationEvent;
+import com.openclassrooms.tourguide.jfr.UpstreamCallEvent;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import rewardCentral.RewardCentral;
+
+public class TestFlightRecorderEvents {
+
+	@Test
+	public void trackingRecordsTrackRewardAndUpstreamEvents() throws Exception {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Path file = Files.createTempFile("tourguide-test", ".jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable(TrackLocationEvent.class);
+			recording.enable(CalculateRewardsEvent.class);
+			recording.enable(UpstreamCallEvent.class);
+			recording.start();
+			tourGuideService.trackUserLocation(user);
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+
+		assertEquals(1, count(events, "tourguide.TrackLocation"));
+		assertEquals(1, count(events, "tourguide.CalculateRewards"));
+		RecordedEvent calculation = events.stream()
+				.filter(event -> event.getEventType().getName().equals("tourguide.CalculateRewards"))
+				.findFirst().orElseThrow();
+		assertEquals(1, calculation.getInt("locations"));
+		assertEquals(26, calculation.getInt("attractions"));
+		// the location fetch and the attractions listing
+		assertEquals(2, events.stream()
+				.filter(event -> event.getEventType().getName().equals("tourguide.UpstreamCall"))
+				.filter(event -> event.getString("upstream").equals("gps"))
+				.count());
+	}
+
+	private long count(List<RecordedEvent> events, String name) {
+		return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+	}
+}
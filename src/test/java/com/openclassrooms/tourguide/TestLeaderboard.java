@@ -0,0 +1,78 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.leaderboard.Leaderboard;
+import com.openclassrooms.tourguide.leaderboard.LeaderboardEntry;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+public class TestLeaderboard {
+	private final Leaderboard leaderboard = new Leaderboard();
+
+	@Test
+	public void ranksUsersByRewardPoints() {
+		User alice = rewardedUser("alice", 300);
+		User bob = rewardedUser("bob", 100);
+		User carol = rewardedUser("carol", 300);
+		User dave = new User(UUID.randomUUID(), "dave", "000", "dave@tourGuide.com");
+		List.of(alice, bob, carol).forEach(leaderboard::update);
+
+		assertEquals(List.of("alice", "carol"), leaderboard.getTop(2).stream().map(LeaderboardEntry::userName).toList());
+		assertEquals(new LeaderboardEntry("carol", 300, 1, 100.0 / 3), leaderboard.getStanding(carol));
+		assertEquals(new LeaderboardEntry("bob", 100, 3, 0), leaderboard.getStanding(bob));
+		assertEquals(4, leaderboard.getStanding(dave).rank());
+
+		addReward(bob, 250);
+		leaderboard.onRewardGranted(bob, null);
+
+		assertEquals(List.of("bob", "alice", "carol"), leaderboard.getTop(10).stream()
+				.map(LeaderboardEntry::userName).toList());
+		assertEquals(2, leaderboard.getStanding(carol).rank());
+		assertEquals(3, leaderboard.getRankedUserCount());
+		assertThrows(IllegalArgumentException.class, () -> leaderboard.getTop(0));
+	}
+
+	@Test
+	public void answersLikeAFullScanAtScale() {
+		SplittableRandom random = new SplittableRandom(42);
+		List<User> users = IntStream.range(0, 20_000)
+				.mapToObj(i -> rewardedUser("user" + i, 1 + random.nextInt(30_000)))
+				.toList();
+		users.parallelStream().forEach(leaderboard::update);
+		List<Integer> descending = users.stream().map(User::getRewardPoints).sorted(Comparator.reverseOrder()).toList();
+
+		User user = users.get(1234);
+		long higher = descending.stream().filter(points -> points > user.getRewardPoints()).count();
+		assertEquals(higher + 1, leaderboard.getStanding(user).rank());
+		assertEquals(descending.subList(0, 5), leaderboard.getTop(5).stream().map(LeaderboardEntry::rewardPoints).toList());
+		assertEquals(Leaderboard.MAX_TOP, leaderboard.getTop(Integer.MAX_VALUE).size());
+		assertEquals((int) descending.get(1999), leaderboard.getPointsAtPercentile(10));
+		assertEquals((int) descending.get(19_999), leaderboard.getPointsAtPercentile(100));
+	}
+
+	private User rewardedUser(String userName, int points) {
+		User user = new User(UUID.randomUUID(), userName, "000", userName + "@tourGuide.com");
+		addReward(user, points);
+		return user;
+	}
+
+	private void addReward(User user, int points) {
+		Attraction attraction = new Attraction("attraction" + user.getUserRewards().size(), "city", "state", 0, 0);
+		user.addUserReward(new UserReward(new VisitedLocation(user.getUserId(), attraction, new Date()), attraction,
+				points));
+	}
+}
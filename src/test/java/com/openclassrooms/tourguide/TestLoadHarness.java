@@ -0,0 +1,53 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.loadtest.LoadTestConfig;
+import com.openclassrooms.tourguide.loadtest.LoadTestHarness;
+import com.openclassrooms.tourguide.loadtest.LoadTestResult;
+import com.openclassrooms.tourguide.loadtest.StartupBenchmark;
+import com.openclassrooms.tourguide.loadtest.StartupResult;
+
+/**
+ * Entry point of the load tests, excluded from the default build.
+ *
+ * Run the full curves with {@code mvn test -Ploadtest}, the steps being configured with the
+ * loadtest.* system properties described in {@link LoadTestConfig}. The startup benchmark is
+ * configured by the startup.* system properties described in {@link StartupBenchmark}.
+ */
+@Tag("loadtest")
+public class TestLoadHarness {
+
+	@Test
+	public void throughputCurves() throws Exception {
+		LoadTestConfig config = System.getProperty("loadtest.users") != null
+				? LoadTestConfig.fromSystemProperties()
+				: new LoadTestConfig(List.of(1000), List.of(1, 10), List.of("track", "rewards", "nearby"), 500,
+						LatencyModel.parse("uniform:1-2"), LatencyModel.parse("uniform:0-1"), LatencyModel.NONE, "",
+						Path.of("target/loadtest"));
+
+		List<LoadTestResult> results = new LoadTestHarness(config).run();
+
+		assertTrue(!results.isEmpty());
+		results.forEach(result -> assertEquals(0, result.errors()));
+		assertTrue(Files.list(config.outputDirectory()).anyMatch(file -> file.toString().endsWith(".csv")));
+	}
+
+	@Test
+	public void timeToFirstRequest() throws Exception {
+		List<StartupResult> results = StartupBenchmark.fromSystemProperties().run();
+
+		assertTrue(!results.isEmpty());
+		results.forEach(result -> assertTrue(result.minMillis() > 0));
+	}
+
+}
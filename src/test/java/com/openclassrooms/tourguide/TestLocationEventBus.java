@@ -0,0 +1,61 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.event.LocationEventBus;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestLocationEventBus {
+
+	@Test
+	public void publisherRejectedAtShutdownDoesNotStallTheConsumer() throws Exception {
+		LocationEventBus bus = new LocationEventBus(2, 1);
+		CountDownLatch handlerReleased = new CountDownLatch(1);
+		AtomicInteger handled = new AtomicInteger();
+		bus.subscribe(events -> {
+			try {
+				handlerReleased.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			handled.addAndGet(events.size());
+		});
+		// one event held by the handler, two filling the ring
+		for (int i = 0; i < 3; i++) {
+			bus.publish(event());
+			Thread.sleep(20);
+		}
+		Thread publisher = new Thread(() -> assertThrows(IllegalStateException.class, () -> bus.publish(event())));
+		publisher.start();
+		Thread.sleep(50);
+
+		bus.shutdown();
+		publisher.join(1000);
+		handlerReleased.countDown();
+		Thread awaiting = new Thread(bus::awaitDispatched);
+		awaiting.start();
+		awaiting.join(1000);
+
+		assertFalse(publisher.isAlive());
+		assertFalse(awaiting.isAlive());
+		assertEquals(3, handled.get());
+	}
+
+	private static LocationEvent event() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		return new LocationEvent(user, new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()), false);
+	}
+}
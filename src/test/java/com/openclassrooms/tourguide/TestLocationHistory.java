@@ -0,0 +1,115 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.geo.BoundingBox;
+import com.openclassrooms.tourguide.geo.TrajectorySimplifier;
+import com.openclassrooms.tourguide.user.LocationHistory;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestLocationHistory {
+	private final UUID userId = UUID.randomUUID();
+
+	@Test
+	public void locationsAreKeptInTimeOrder() {
+		LocationHistory history = new LocationHistory();
+		Random random = new Random(3);
+		for (int i = 0; i < 2000; i++) {
+			history.add(visit(random.nextInt(1_000_000), 0, 0));
+		}
+
+		List<VisitedLocation> locations = history.asList();
+
+		assertEquals(2000, locations.size());
+		for (int i = 1; i < locations.size(); i++) {
+			assertTrue(!locations.get(i).timeVisited.before(locations.get(i - 1).timeVisited));
+		}
+		assertSame(locations.get(1999), history.latest());
+	}
+
+	@Test
+	public void timeWindowAndBoundingBoxQueriesMatchFullScan() {
+		LocationHistory history = new LocationHistory();
+		Random random = new Random(5);
+		long fiveMinutes = TimeUnit.MINUTES.toMillis(5);
+		// a year of 5-minute samples wandering around Paris
+		double latitude = 48.85;
+		double longitude = 2.35;
+		for (long time = 0; time < TimeUnit.DAYS.toMillis(365); time += fiveMinutes) {
+			latitude += (random.nextDouble() - 0.5) * 0.01;
+			longitude += (random.nextDouble() - 0.5) * 0.01;
+			history.add(visit(time, latitude, longitude));
+		}
+		List<VisitedLocation> all = history.asList();
+		Date from = new Date(TimeUnit.DAYS.toMillis(100));
+		Date to = new Date(TimeUnit.DAYS.toMillis(130));
+		BoundingBox box = new BoundingBox(48.8, 2.3, 48.9, 2.4);
+
+		List<VisitedLocation> between = history.between(from, to);
+		List<VisitedLocation> within = history.within(box, null, null);
+		List<VisitedLocation> withinBetween = history.within(box, from, to);
+
+		assertEquals(all.stream().filter(v -> !v.timeVisited.before(from) && !v.timeVisited.after(to)).toList(), between);
+		assertEquals(all.stream().filter(v -> box.contains(v.location)).toList(), within);
+		assertEquals(between.stream().filter(v -> box.contains(v.location)).toList(), withinBetween);
+	}
+
+	@Test
+	public void compactionSimplifiesOldHistoryOnlyAndKeepsPinnedLocations() {
+		LocationHistory history = new LocationHistory();
+		Random random = new Random(11);
+		long fiveMinutes = TimeUnit.MINUTES.toMillis(5);
+		long days = TimeUnit.DAYS.toMillis(20);
+		double latitude = 48.85;
+		for (long time = 0; time < days; time += fiveMinutes) {
+			latitude += random.nextDouble() * 0.0001;
+			history.add(visit(time, latitude, 2.35));
+		}
+		Date olderThan = new Date(TimeUnit.DAYS.toMillis(10));
+		VisitedLocation pinned = history.between(new Date(TimeUnit.DAYS.toMillis(3)), null).get(0);
+		int recent = history.between(olderThan, null).size();
+		int before = history.size();
+
+		int removed = history.compact(olderThan, TrajectorySimplifier.parse("douglas-peucker:50"), Set.of(pinned));
+
+		assertTrue(removed > before / 4);
+		assertEquals(before - removed, history.size());
+		assertTrue(history.asList().contains(pinned));
+		assertTrue(history.between(olderThan, null).size() >= recent);
+		assertEquals(0, history.compact(olderThan, TrajectorySimplifier.parse("douglas-peucker:50"), Set.of()));
+	}
+
+	@Test
+	public void stayPointsCollapseLongStays() {
+		LocationHistory history = new LocationHistory();
+		long fiveMinutes = TimeUnit.MINUTES.toMillis(5);
+		for (int i = 0; i < 24; i++) {
+			history.add(visit(i * fiveMinutes, 48.85, 2.35 + i * 0.00001));
+		}
+		for (int i = 24; i < 30; i++) {
+			history.add(visit(i * fiveMinutes, 48.85 + (i - 23) * 0.01, 2.35));
+		}
+
+		history.compact(new Date(TimeUnit.DAYS.toMillis(1)), TrajectorySimplifier.parse("stay-points:100,1200"), Set.of());
+
+		// arrival and departure of the two-hour stay, then the six moving locations
+		assertEquals(8, history.size());
+	}
+
+	private VisitedLocation visit(long time, double latitude, double longitude) {
+		return new VisitedLocation(userId, new Location(latitude, longitude), new Date(time));
+	}
+}
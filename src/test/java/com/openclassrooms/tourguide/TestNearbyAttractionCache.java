@@ -0,0 +1,128 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.cache.NearbyAttractionCache;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.RewardGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestNearbyAttractionCache {
+	private final GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+	private final AtomicInteger rewardCalls = new AtomicInteger();
+	private final RewardGateway rewardGateway = (attractionId, userId) -> rewardCalls.incrementAndGet();
+	private final RewardsService rewardsService = new RewardsService(gpsGateway, rewardGateway);
+
+	@Test
+	public void userStayingInCellIsAnsweredFromCache() {
+		NearbyAttractionCache cache = new NearbyAttractionCache(gpsGateway, rewardsService, 5, 5, 100, 100);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(33.817595, -117.922008), new Date());
+
+		List<NearbyAttractionDTO> first = cache.getNearByAttractions(visitedLocation, user);
+		List<NearbyAttractionDTO> second = cache.getNearByAttractions(visitedLocation, user);
+
+		assertEquals(5, rewardCalls.get());
+		assertEquals(first, second);
+		assertEquals(1, cache.cachedCells());
+	}
+
+	@Test
+	public void leavingTheCellInvalidatesTheRanking() {
+		NearbyAttractionCache cache = new NearbyAttractionCache(gpsGateway, rewardsService, 5, 5, 100, 100);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation disneyland = new VisitedLocation(user.getUserId(), new Location(33.817595, -117.922008), new Date());
+		VisitedLocation newYork = new VisitedLocation(user.getUserId(), new Location(40.7128, -74.0060), new Date());
+		cache.getNearByAttractions(disneyland, user);
+
+		cache.onEvents(List.of(new LocationEvent(user, newYork, false)));
+		List<NearbyAttractionDTO> nearNewYork = cache.getNearByAttractions(newYork, user);
+
+		assertEquals(2, cache.cachedCells());
+		assertEquals(expectedNearest(newYork.location), nearNewYork.stream().map(NearbyAttractionDTO::attractionName).toList());
+	}
+
+	@Test
+	public void cachedRankingMatchesExactRanking() {
+		NearbyAttractionCache cache = new NearbyAttractionCache(gpsGateway, rewardsService, 5, 5, 10000, 10000);
+		Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			// locations gathered in a few cells, so most of them hit a cached cell
+			Location location = new Location(33.8 + random.nextDouble() * 0.04, -117.92 + random.nextDouble() * 0.04);
+			VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), location, new Date());
+
+			List<String> names = cache.getNearByAttractions(visitedLocation, user).stream()
+					.map(NearbyAttractionDTO::attractionName)
+					.toList();
+
+			assertEquals(expectedNearest(location), names);
+		}
+	}
+
+	@Test
+	public void cachedRankingMatchesExactRankingAmongDenseAttractions() {
+		Random random = new Random(11);
+		List<Attraction> attractions = IntStream.range(0, 80)
+				.mapToObj(i -> new Attraction("attraction" + i, "Anaheim", "CA",
+						33.7 + random.nextDouble() * 0.3, -118.05 + random.nextDouble() * 0.3))
+				.toList();
+		GpsGateway denseGateway = new GpsGateway() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public List<Attraction> getAttractions() {
+				return attractions;
+			}
+		};
+		RewardsService denseRewardsService = new RewardsService(denseGateway, rewardGateway);
+		NearbyAttractionCache cache = new NearbyAttractionCache(denseGateway, denseRewardsService, 5, 5, 10000, 10000);
+		for (int i = 0; i < 2000; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			Location location = new Location(33.8 + random.nextDouble() * 0.1, -117.95 + random.nextDouble() * 0.1);
+			VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), location, new Date());
+
+			List<String> names = cache.getNearByAttractions(visitedLocation, user).stream()
+					.map(NearbyAttractionDTO::attractionName)
+					.toList();
+
+			assertEquals(expectedNearest(attractions, location), names);
+		}
+		denseRewardsService.shutdown();
+	}
+
+	private List<String> expectedNearest(Location location) {
+		return expectedNearest(gpsGateway.getAttractions(), location);
+	}
+
+	private List<String> expectedNearest(List<Attraction> attractions, Location location) {
+		return attractions.stream()
+				.sorted(Comparator.comparingDouble((Attraction attraction) -> rewardsService.getDistance(attraction, location)))
+				.limit(5)
+				.map(attraction -> attraction.attractionName)
+				.toList();
+	}
+}
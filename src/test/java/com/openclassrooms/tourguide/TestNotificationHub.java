@@ -0,0 +1,181 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.openclassrooms.tourguide.cache.AttractionCatalog;
+import com.openclassrooms.tourguide.event.LocationEvent;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.notification.NotificationHub;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestNotificationHub {
+	private final GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+	private final AtomicBoolean gpsDown = new AtomicBoolean();
+	private final AttractionCatalog attractionCatalog = new AttractionCatalog(new GpsGateway() {
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			return gpsGateway.getUserLocation(userId);
+		}
+
+		@Override
+		public List<Attraction> getAttractions() {
+			if (gpsDown.get()) {
+				throw new IllegalStateException("gps down");
+			}
+			return gpsGateway.getAttractions();
+		}
+	});
+	private final RewardsService rewardsService = new RewardsService(gpsGateway, (attractionId, userId) -> 100);
+	private final Queue<String> sent = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean stallNextSubscriber = new AtomicBoolean();
+	private final Queue<Throwable> stalledErrors = new ConcurrentLinkedQueue<>();
+	private final NotificationHub notificationHub = newNotificationHub(2, Duration.ofSeconds(5));
+
+	@Test
+	public void enteringAnAttractionRadiusIsNotifiedOnce() throws Exception {
+		attractionCatalog.refresh();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User otherUser = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		notificationHub.subscribe(user);
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		VisitedLocation atAttraction = new VisitedLocation(user.getUserId(), attraction, new Date());
+
+		notificationHub.onEvents(List.of(new LocationEvent(user, atAttraction, false),
+				new LocationEvent(otherUser, atAttraction, false)));
+		notificationHub.onEvents(List.of(new LocationEvent(user, atAttraction, false)));
+		awaitSent(1);
+
+		assertEquals(List.of("event:geofence"), List.copyOf(sent));
+		assertEquals(1, notificationHub.subscriberCount());
+	}
+
+	@Test
+	public void geofencesDoNotCallTheGpsServiceOnTheBusConsumer() throws Exception {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		notificationHub.subscribe(user);
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		VisitedLocation atAttraction = new VisitedLocation(user.getUserId(), attraction, new Date());
+		gpsDown.set(true);
+		assertFalse(attractionCatalog.refresh());
+
+		// nothing loaded yet: the batch is skipped without failing
+		notificationHub.onEvents(List.of(new LocationEvent(user, atAttraction, false)));
+		gpsDown.set(false);
+		assertTrue(attractionCatalog.refresh());
+		gpsDown.set(true);
+		assertFalse(attractionCatalog.refresh());
+		// the attractions of the last refresh are kept while the GPS service is down
+		notificationHub.onEvents(List.of(new LocationEvent(user, atAttraction, false)));
+		awaitSent(1);
+
+		assertEquals(List.of("event:geofence"), List.copyOf(sent));
+	}
+
+	@Test
+	public void grantedRewardsArePushed() throws Exception {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		notificationHub.subscribe(user);
+		rewardsService.addRewardListener(notificationHub);
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(attraction.latitude, attraction.longitude), new Date()));
+
+		rewardsService.calculateRewards(user);
+		rewardsService.calculateRewards(user);
+		awaitSent(1);
+
+		assertEquals(List.of("event:reward"), List.copyOf(sent));
+		assertTrue(user.getUserRewards().stream().map(UserReward::getRewardPoints).allMatch(points -> points == 100));
+	}
+
+	@Test
+	public void stalledSubscriberIsClosedWithoutDelayingTheOthers() throws Exception {
+		NotificationHub hub = newNotificationHub(1, Duration.ofMillis(200));
+		User stalledUser = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User user = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		stallNextSubscriber.set(true);
+		hub.subscribe(stalledUser);
+		hub.subscribe(user);
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		VisitedLocation atAttraction = new VisitedLocation(user.getUserId(), attraction, new Date());
+
+		// the only fan-out thread blocks on the stalled client first
+		hub.onRewardGranted(stalledUser, new UserReward(atAttraction, attraction, 100));
+		hub.onRewardGranted(user, new UserReward(atAttraction, attraction, 100));
+		awaitSent(1);
+
+		try {
+			assertEquals(List.of("event:reward"), List.copyOf(sent));
+			assertEquals(1, hub.subscriberCount());
+			assertFalse(stalledErrors.isEmpty());
+		} finally {
+			hub.shutdown();
+		}
+	}
+
+	private NotificationHub newNotificationHub(int fanOutThreads, Duration writeTimeout) {
+		return new NotificationHub(rewardsService, attractionCatalog, Duration.ofMinutes(1), Duration.ofHours(1),
+				fanOutThreads, writeTimeout) {
+			@Override
+			protected SseEmitter createEmitter(long timeoutMillis) {
+				if (stallNextSubscriber.getAndSet(false)) {
+					return new SseEmitter(timeoutMillis) {
+						@Override
+						public void send(SseEventBuilder builder) throws IOException {
+							// a client that stopped reading: the write blocks until interrupted
+							try {
+								new CountDownLatch(1).await();
+							} catch (InterruptedException e) {
+								throw new IOException(e);
+							}
+						}
+
+						@Override
+						public void completeWithError(Throwable error) {
+							stalledErrors.add(error);
+						}
+					};
+				}
+				return new SseEmitter(timeoutMillis) {
+					@Override
+					public void send(SseEventBuilder builder) throws IOException {
+						// keeps the "event:<name>" line of the event
+						sent.add(builder.build().iterator().next().getData().toString().lines().findFirst().orElse(""));
+					}
+				};
+			}
+		};
+	}
+
+	private void awaitSent(int count) throws InterruptedException {
+		for (int i = 0; i < 100 && sent.size() < count; i++) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		TimeUnit.MILLISECONDS.sleep(50);
+	}
+}
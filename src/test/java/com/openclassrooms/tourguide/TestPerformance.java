@@ -1,110 +1,60 @@
 package com.openclassrooms.tourguide;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-import java.util.ArrayList;
-import java.util.Date;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.lang3.time.StopWatch;
 import org.junit.jupiter.api.Test;
 
-import gpsUtil.GpsUtil;
-import gpsUtil.location.Attraction;
-import gpsUtil.location.VisitedLocation;
-import rewardCentral.RewardCentral;
-import com.openclassrooms.tourguide.helper.InternalTestHelper;
-import com.openclassrooms.tourguide.service.RewardsService;
-import com.openclassrooms.tourguide.service.TourGuideService;
-import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.loadtest.LoadTestConfig;
+import com.openclassrooms.tourguide.loadtest.LoadTestHarness;
+import com.openclassrooms.tourguide.loadtest.LoadTestResult;
 
 public class TestPerformance {
 
 	/*
-	 * A note on performance improvements:
-	 * 
-	 * The number of users generated for the high volume tests can be easily
-	 * adjusted via this method:
-	 * 
-	 * InternalTestHelper.setInternalUserNumber(100000);
-	 * 
-	 * 
-	 * These tests can be modified to suit new solutions, just as long as the
-	 * performance metrics at the end of the tests remains consistent.
-	 * 
 	 * These are performance metrics that we are trying to hit:
-	 * 
-	 * highVolumeTrackLocation: 100,000 users within 15 minutes:
-	 * assertTrue(TimeUnit.MINUTES.toSeconds(15) >=
-	 * TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
 	 *
-	 * highVolumeGetRewards: 100,000 users within 20 minutes:
-	 * assertTrue(TimeUnit.MINUTES.toSeconds(20) >=
-	 * TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
+	 * highVolumeTrackLocation: 100,000 users within 15 minutes
+	 * highVolumeGetRewards: 100,000 users within 20 minutes
+	 *
+	 * They are checked as throughputs on the output of the load test harness, at a step of
+	 * USERS users. Its simulated services sleep as gpsUtil (30 to 100 ms per location) and
+	 * RewardCentral (1 to 1000 ms per reward) do. The throughput curves up to a million users
+	 * come from the loadtest profile (see LoadTestHarness).
 	 */
+	private static final int USERS = 1000;
+	private static final double TRACK_USERS_PER_SECOND = 100_000 / (15 * 60.0);
+	private static final double REWARDS_USERS_PER_SECOND = 100_000 / (20 * 60.0);
 
-	//@Disabled
 	@Test
-	public void highVolumeTrackLocation() {  // objectif 0.9s / 100
-		GpsUtil gpsUtil = new GpsUtil();
-		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
-		// Users should be incremented up to 100,000, and test finishes within 15
-		// minutes
-		InternalTestHelper.setInternalUserNumber(100);
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
-
-		List<User> allUsers = new ArrayList<>();
-		allUsers = tourGuideService.getAllUsers();
-
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
+	public void highVolumeTrackLocation() throws IOException {
+		LoadTestResult result = measure("track");
 
-		tourGuideService.trackAllUsersLocationAsync(allUsers);
-		stopWatch.stop();
-		tourGuideService.tracker.stopTracking();
-
-		System.out.println("highVolumeTrackLocation: Time Elapsed: "
-				+ TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
-		assertTrue(TimeUnit.MINUTES.toSeconds(15) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
+		assertEquals(0, result.errors());
+		assertTrue(result.throughputPerSecond() >= TRACK_USERS_PER_SECOND,
+				"tracked " + result.throughputPerSecond() + " users/s");
 	}
 
 	@Test
-	public void highVolumeGetRewards() { // objectif 1.2s / 100
-		GpsUtil gpsUtil = new GpsUtil();
-		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
-
-		// Users should be incremented up to 100,000, and test finishes within 20
-		// minutes
-		InternalTestHelper.setInternalUserNumber(100);
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
-		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
-
-		Attraction attraction = gpsUtil.getAttractions().get(0);
-		List<User> allUsers = new ArrayList<>();
-		allUsers = tourGuideService.getAllUsers();
-		allUsers.forEach(u -> u.addToVisitedLocations(new VisitedLocation(u.getUserId(), attraction, new Date())));
+	public void highVolumeGetRewards() throws IOException {
+		LoadTestResult result = measure("rewards");
 
-		//allUsers.forEach(u -> rewardsService.calculateRewardsAsync(u));
-
-
-		//bloc ajouté au test pour attendre et éviter un assert raté par la suite
-		List<CompletableFuture<Void>> futures = allUsers.stream()
-				.map(rewardsService::calculateRewardsAsync)
-				.toList();
-		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-		for (User user : allUsers) {
-			assertTrue(user.getUserRewards().size() > 0);
-		}
-		stopWatch.stop();
-		tourGuideService.tracker.stopTracking();
-
-		System.out.println("highVolumeGetRewards: Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime())
-				+ " seconds.");
-		assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
+		assertEquals(0, result.errors());
+		assertTrue(result.throughputPerSecond() >= REWARDS_USERS_PER_SECOND,
+				"rewarded " + result.throughputPerSecond() + " users/s");
 	}
 
+	private static LoadTestResult measure(String scenario) throws IOException {
+		LoadTestConfig config = new LoadTestConfig(List.of(USERS), List.of(1), List.of(scenario), 0,
+				LatencyModel.parse("uniform:30-100"), LatencyModel.parse("uniform:1-1000"), LatencyModel.NONE, "",
+				Path.of("target/loadtest"));
+		List<LoadTestResult> results = new LoadTestHarness(config).run();
+		assertEquals(1, results.size());
+		return results.get(0);
+	}
 }
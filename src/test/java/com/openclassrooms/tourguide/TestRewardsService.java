@@ -15,6 +15,10 @@ import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
@@ -40,6 +44,25 @@ public class TestRewardsService {
 		assertTrue(userRewards.size() == 1);
 	}
 
+	@Test
+	public void rewardsAreCalculatedAfterAsyncTracking() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		tourGuideService.trackUserLocationAsync(user).join();
+		tourGuideService.awaitPendingRewards();
+		List<UserReward> userRewards = user.getUserRewards();
+		tourGuideService.shutdown();
+
+		assertEquals(2, user.getVisitedLocations().size());
+		assertEquals(1, userRewards.size());
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -64,4 +87,21 @@ public class TestRewardsService {
 		assertEquals(gpsUtil.getAttractions().size(), userRewards.size());
 	}
 
+	@Test
+	public void widenedProximityBufferRewardsEarlierLocations() {
+		GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+		RewardsService rewardsService = new RewardsService(gpsGateway, (attractionId, userId) -> 100);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()));
+
+		rewardsService.calculateRewards(user);
+		assertEquals(0, user.getUserRewards().size());
+		assertTrue(user.getUnrewardedLocations().isEmpty());
+
+		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
+		rewardsService.calculateRewards(user);
+
+		assertEquals(gpsGateway.getAttractions().size(), user.getUserRewards().size());
+	}
+
 }
@@ -0,0 +1,63 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.gateway.UpstreamException;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedRewardGateway;
+
+public class TestSimulatedGateways {
+
+	@Test
+	public void fixedAndUniformLatencies() {
+		assertEquals(50, LatencyModel.parse("fixed:50").nextDelayMillis());
+		assertEquals(0, LatencyModel.parse("none").nextDelayMillis());
+		IntStream.range(0, 1000).forEach(i -> {
+			long delay = LatencyModel.parse("uniform:20-80").nextDelayMillis();
+			assertTrue(delay >= 20 && delay <= 80);
+		});
+	}
+
+	@Test
+	public void logNormalLatencyMatchesMedianAndP99() {
+		LatencyModel latency = LatencyModel.parse("lognormal:40,400");
+		long[] delays = IntStream.range(0, 100000).mapToLong(i -> latency.nextDelayMillis()).sorted().toArray();
+
+		assertEquals(40, delays[50000], 3);
+		assertEquals(400, delays[99000], 40);
+	}
+
+	@Test
+	public void traceLatencyReplaysRecordedValues() throws Exception {
+		Path trace = Files.createTempFile("latency-trace", ".csv");
+		Files.writeString(trace, "timestamp,latencyMillis\n1,12\n2,7.6\n3,250\n");
+		LatencyModel latency = LatencyModel.parse("trace:" + trace);
+		Files.delete(trace);
+
+		long[] delays = IntStream.range(0, 4).mapToLong(i -> latency.nextDelayMillis()).toArray();
+
+		assertTrue(Arrays.equals(new long[] { 12, 8, 250, 12 }, delays));
+	}
+
+	@Test
+	public void injectedFailures() {
+		SimulatedRewardGateway alwaysFailing = new SimulatedRewardGateway(LatencyModel.NONE, new FailureInjector(1));
+		SimulatedRewardGateway neverFailing = new SimulatedRewardGateway(LatencyModel.NONE, FailureInjector.NONE);
+
+		assertThrows(UpstreamException.class,
+				() -> alwaysFailing.getAttractionRewardPoints(UUID.randomUUID(), UUID.randomUUID()));
+		assertTrue(neverFailing.getAttractionRewardPoints(UUID.randomUUID(), UUID.randomUUID()) > 0);
+	}
+
+}
@@ -1,10 +1,17 @@
 package com.openclassrooms.tourguide;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
 import org.junit.jupiter.api.Disabled;
@@ -14,11 +21,14 @@ import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.gateway.GpsUtilGateway;
+import com.openclassrooms.tourguide.gateway.TripPricerGateway;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 import tripPricer.Provider;
+import tripPricer.TripPricer;
 
 public class TestTourGuideService {
 
@@ -35,6 +45,26 @@ public class TestTourGuideService {
 		assertTrue(visitedLocation.userId.equals(user.getUserId()));
 	}
 
+	@Test
+	public void getUserLocationCoalescesConcurrentCalls() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		ExecutorService callers = Executors.newFixedThreadPool(10);
+		List<CompletableFuture<VisitedLocation>> futures = IntStream.range(0, 10)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> tourGuideService.getUserLocation(user), callers))
+				.toList();
+		List<VisitedLocation> locations = futures.stream().map(CompletableFuture::join).toList();
+		callers.shutdown();
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, user.getVisitedLocations().size());
+		assertTrue(locations.stream().allMatch(location -> location == user.getLastVisitedLocation()));
+	}
+
 	@Test
 	public void addUser() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -78,6 +108,66 @@ public class TestTourGuideService {
 		assertTrue(allUsers.contains(user2));
 	}
 
+	@Test
+	public void internalUsersAreReproducible() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(50);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		TourGuideService otherTourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		otherTourGuideService.tracker.stopTracking();
+
+		User user = tourGuideService.getUser("internalUser42");
+		User otherUser = otherTourGuideService.getUser("internalUser42");
+
+		assertEquals(50, tourGuideService.getAllUsers().size());
+		assertEquals(user.getUserId(), otherUser.getUserId());
+		assertEquals(user.getLastVisitedLocation().location.latitude,
+				otherUser.getLastVisitedLocation().location.latitude, 0);
+		assertEquals(user.getVisitedLocations().stream().map(visitedLocation -> visitedLocation.timeVisited).toList(),
+				otherUser.getVisitedLocations().stream().map(visitedLocation -> visitedLocation.timeVisited).toList());
+	}
+
+	@Test
+	public void lazyInternalUsersAreGeneratedOnAccess() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(50);
+		TourGuideService eagerTourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		eagerTourGuideService.tracker.stopTracking();
+		InternalTestHelper.setLazyInternalUsers(true);
+		TourGuideService lazyTourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		lazyTourGuideService.tracker.stopTracking();
+		InternalTestHelper.setLazyInternalUsers(false);
+
+		User user = lazyTourGuideService.getUser("internalUser7");
+
+		assertEquals(eagerTourGuideService.getUser("internalUser7").getUserId(), user.getUserId());
+		assertEquals(3, user.getVisitedLocations().size());
+		assertEquals(null, lazyTourGuideService.getUser("internalUser50"));
+		assertEquals(50, lazyTourGuideService.getAllUsers().size());
+	}
+
+	@Test
+	public void deferredInternalUsersAreLoadedOnceReady() throws Exception {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(50);
+		TourGuideService tourGuideService = new TourGuideService(new GpsUtilGateway(gpsUtil), rewardsService,
+				new TripPricerGateway(new TripPricer()), true);
+		tourGuideService.tracker.stopTracking();
+
+		User user = tourGuideService.getUser("internalUser7");
+		assertFalse(tourGuideService.getInternalUsersLoaded().isDone());
+
+		tourGuideService.loadDeferredInternalUsers();
+		tourGuideService.getInternalUsersLoaded().get(10, TimeUnit.SECONDS);
+
+		assertSame(user, tourGuideService.getUser("internalUser7"));
+		assertEquals(50, tourGuideService.getAllUsers().size());
+	}
+
 	@Test
 	public void trackUser() {
 		GpsUtil gpsUtil = new GpsUtil();
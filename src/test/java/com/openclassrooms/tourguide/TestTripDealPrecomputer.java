@@ -0,0 +1,107 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.service.TripDealPrecomputer;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tripPricer.Provider;
+
+public class TestTripDealPrecomputer {
+	private final GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+	private final RewardsService rewardsService = new RewardsService(gpsGateway, (attractionId, userId) -> 100);
+	private final AtomicInteger pricings = new AtomicInteger();
+	private final TourGuideService tourGuideService;
+	private final TripDealPrecomputer tripDealPrecomputer;
+	private final User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	public TestTripDealPrecomputer() {
+		InternalTestHelper.setInternalUserNumber(0);
+		tourGuideService = new TourGuideService(gpsGateway, rewardsService,
+				(apiKey, tripId, adults, children, nightsStay, rewardsPoints) -> {
+					pricings.incrementAndGet();
+					return List.of(new Provider(tripId, "points:" + rewardsPoints + ",adults:" + adults, 100));
+				});
+		tourGuideService.tracker.stopTracking();
+		tripDealPrecomputer = new TripDealPrecomputer(tourGuideService, 2, 10, Duration.ZERO);
+		tourGuideService.setTripDealPrecomputer(tripDealPrecomputer);
+		rewardsService.addRewardListener(tripDealPrecomputer);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		tripDealPrecomputer.shutdown();
+		tourGuideService.shutdown();
+		rewardsService.shutdown();
+	}
+
+	@Test
+	public void precomputedDealsAreServedWithoutPricing() {
+		List<Provider> firstDeals = tourGuideService.getTripDeals(user);
+		awaitLane();
+
+		List<Provider> secondDeals = tourGuideService.getTripDeals(user);
+
+		assertSame(firstDeals, secondDeals);
+		assertEquals(1, pricings.get());
+	}
+
+	@Test
+	public void grantedRewardsAndPreferenceChangesAreRepricedInBatches() {
+		Attraction attraction = gpsGateway.getAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user);
+		UserPreferences preferences = new UserPreferences();
+		preferences.setNumberOfAdults(2);
+		tourGuideService.setUserPreferences(user, preferences);
+		tourGuideService.setUserPreferences(user, preferences);
+
+		assertEquals(1, tripDealPrecomputer.getDirtyUserCount());
+		assertEquals(1, tripDealPrecomputer.priceBatch());
+		awaitLane();
+
+		assertEquals(0, tripDealPrecomputer.getDirtyUserCount());
+		assertEquals("points:100,adults:2", tourGuideService.getTripDeals(user).get(0).name);
+		assertEquals(1, pricings.get());
+	}
+
+	@Test
+	public void outdatedDealsArePricedSynchronouslyPastTheStalenessBound() {
+		tourGuideService.getTripDeals(user);
+		awaitLane();
+		user.addUserReward(new UserReward(new VisitedLocation(user.getUserId(), gpsGateway.getAttractions().get(0),
+				new Date()), gpsGateway.getAttractions().get(0), 50));
+
+		List<Provider> deals = tourGuideService.getTripDeals(user);
+
+		assertEquals("points:50,adults:1", deals.get(0).name);
+		assertEquals(2, pricings.get());
+		assertTrue(user.getComputedTripDeals().isComputed());
+	}
+
+	private void awaitLane() {
+		tourGuideService.getUserLanes().call(user, () -> null);
+	}
+}
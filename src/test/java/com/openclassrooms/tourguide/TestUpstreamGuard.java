@@ -0,0 +1,164 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.openclassrooms.tourguide.gateway.UpstreamException;
+import com.openclassrooms.tourguide.gateway.UpstreamOverloadedException;
+import com.openclassrooms.tourguide.gateway.resilience.CircuitBreaker;
+import com.openclassrooms.tourguide.gateway.resilience.ResiliencePolicy;
+import com.openclassrooms.tourguide.gateway.resilience.UpstreamGuard;
+import com.openclassrooms.tourguide.scheduling.AdmissionPolicy;
+import com.openclassrooms.tourguide.scheduling.Priority;
+
+public class TestUpstreamGuard {
+
+	private static ResiliencePolicy policy(Duration timeout, int maxConcurrentCalls, Duration hedgeDelay) {
+		return new ResiliencePolicy(timeout, maxConcurrentCalls, 1, hedgeDelay, 0.5, 4, Duration.ofMinutes(1));
+	}
+
+	@Test
+	public void slowCallsTimeOut() {
+		UpstreamGuard guard = new UpstreamGuard("gps", policy(Duration.ofMillis(100), 2, Duration.ZERO),
+				new SimpleMeterRegistry());
+
+		long start = System.nanoTime();
+		assertThrows(UpstreamException.class, () -> guard.call(() -> sleepThenReturn(5000, 1)));
+		guard.shutdown();
+
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+	}
+
+	@Test
+	public void hedgedAttemptCutsTheLatencyOfASlowCall() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		UpstreamGuard guard = new UpstreamGuard("rewards", policy(Duration.ofSeconds(5), 2, Duration.ofMillis(50)),
+				meterRegistry);
+		AtomicInteger attempts = new AtomicInteger();
+
+		long start = System.nanoTime();
+		int points = guard.call(() -> attempts.incrementAndGet() == 1 ? sleepThenReturn(3000, 1) : 2);
+		guard.shutdown();
+
+		assertEquals(2, points);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		assertEquals(1.0, meterRegistry.get("tourguide.upstream.hedges").tag("result", "won").counter().count(), 0);
+	}
+
+	@Test
+	public void circuitOpensAfterRepeatedFailures() {
+		UpstreamGuard guard = new UpstreamGuard("pricer", policy(Duration.ofSeconds(1), 2, Duration.ZERO),
+				new SimpleMeterRegistry());
+		AtomicInteger calls = new AtomicInteger();
+
+		for (int i = 0; i < 4; i++) {
+			assertThrows(UpstreamException.class, () -> guard.call(() -> {
+				calls.incrementAndGet();
+				throw new IllegalStateException("down");
+			}));
+		}
+		assertThrows(UpstreamException.class, () -> guard.call(calls::incrementAndGet));
+		guard.shutdown();
+
+		assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitBreakerState());
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	public void fullBulkheadRejectsCalls() throws Exception {
+		UpstreamGuard guard = new UpstreamGuard("gps", policy(Duration.ofSeconds(2), 1, Duration.ZERO),
+				new SimpleMeterRegistry());
+		// one call running on the single bulkhead thread, one waiting in the queue
+		Thread running = new Thread(() -> guard.call(() -> sleepThenReturn(1000, 1)));
+		Thread queued = new Thread(() -> guard.call(() -> 1));
+		running.start();
+		Thread.sleep(100);
+		queued.start();
+		Thread.sleep(100);
+
+		assertThrows(UpstreamException.class, () -> guard.call(() -> 1));
+		running.join();
+		queued.join();
+		guard.shutdown();
+	}
+
+	@Test
+	public void interruptedTrialCallDoesNotKeepTheCircuitHalfOpen() throws Exception {
+		UpstreamGuard guard = new UpstreamGuard("pricer", new ResiliencePolicy(Duration.ofSeconds(2), 2, 1,
+				Duration.ZERO, 0.5, 4, Duration.ofMillis(50)), new SimpleMeterRegistry());
+		openCircuit(guard);
+		Thread.sleep(100);
+		Thread trial = new Thread(() -> assertThrows(UpstreamException.class,
+				() -> guard.call(() -> sleepThenReturn(1000, 1))));
+		trial.start();
+		Thread.sleep(100);
+		trial.interrupt();
+		trial.join();
+
+		assertEquals(1, (int) guard.call(() -> 1));
+		guard.shutdown();
+		assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitBreakerState());
+	}
+
+	@Test
+	public void shedTrialCallDoesNotKeepTheCircuitHalfOpen() throws Exception {
+		UpstreamGuard guard = new UpstreamGuard("pricer", new ResiliencePolicy(Duration.ofSeconds(2), 2, 1,
+				Duration.ZERO, 0.5, 4, Duration.ofMillis(50)), new AdmissionPolicy(1, 1, 0, Duration.ofMillis(20),
+						Duration.ofMillis(20), Duration.ofSeconds(1)), new SimpleMeterRegistry());
+		openCircuit(guard);
+		Thread.sleep(100);
+		// the only permit is taken, so the trial call is shed
+		assertTrue(guard.getAdmissionController().acquire(Priority.INTERACTIVE));
+		assertThrows(UpstreamOverloadedException.class, () -> guard.call(() -> 1));
+		guard.getAdmissionController().release(0, false);
+
+		assertEquals(1, (int) guard.call(() -> 1));
+		guard.shutdown();
+		assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitBreakerState());
+	}
+
+	@Test
+	public void interruptedCallDoesNotShrinkTheConcurrencyLimit() throws Exception {
+		UpstreamGuard guard = new UpstreamGuard("pricer", new ResiliencePolicy(Duration.ofSeconds(2), 2, 1,
+				Duration.ZERO, 0.5, 4, Duration.ofMillis(50)), new AdmissionPolicy(1, 4, 0, Duration.ofMillis(20),
+						Duration.ofMillis(20), Duration.ofMillis(50)), new SimpleMeterRegistry());
+		Thread caller = new Thread(() -> assertThrows(UpstreamException.class,
+				() -> guard.call(() -> sleepThenReturn(1000, 1))));
+		caller.start();
+		Thread.sleep(100);
+		caller.interrupt();
+		caller.join();
+
+		assertEquals(4, guard.getAdmissionController().getLimit());
+		assertEquals(0, guard.getAdmissionController().getInFlight());
+		guard.shutdown();
+	}
+
+	private static void openCircuit(UpstreamGuard guard) {
+		for (int i = 0; i < 4; i++) {
+			assertThrows(UpstreamException.class, () -> guard.call(() -> {
+				throw new IllegalStateException("down");
+			}));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitBreakerState());
+	}
+
+	private static int sleepThenReturn(long millis, int value) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.gateway.GpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedPricingGateway;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.ingestion.IngestionReport;
+import com.openclassrooms.tourguide.ingestion.UserIngestionService;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestUserIngestion {
+	// target of the bulk ingestion, checked by the loadtest profile as it depends on the cores available
+	private static final double USERS_PER_SECOND = 100_000;
+
+	private final GpsGateway gpsGateway = new SimulatedGpsGateway(LatencyModel.NONE, FailureInjector.NONE);
+	private final RewardsService rewardsService = new RewardsService(gpsGateway, (attractionId, userId) -> 100);
+	private final TourGuideService tourGuideService;
+	private final UserIngestionService userIngestionService;
+
+	public TestUserIngestion() {
+		InternalTestHelper.setInternalUserNumber(0);
+		tourGuideService = new TourGuideService(gpsGateway, rewardsService,
+				new SimulatedPricingGateway(LatencyModel.NONE, FailureInjector.NONE));
+		tourGuideService.tracker.stopTracking();
+		userIngestionService = new UserIngestionService(tourGuideService, 4, 100);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		userIngestionService.shutdown();
+		tourGuideService.shutdown();
+		rewardsService.shutdown();
+	}
+
+	@Test
+	public void ingestionIsIdempotentAndReportsInvalidRecords() throws Exception {
+		UUID jonId = UUID.randomUUID();
+		String payload = String.join("\n",
+				user(jonId, "jon"),
+				"{\"userId\":\"not-a-uuid\",\"userName\":\"bad\"}",
+				"{\"userId\":",
+				user(UUID.randomUUID(), "jon"),
+				"",
+				user(UUID.randomUUID(), "jane"));
+
+		IngestionReport first = userIngestionService.ingestNdjson(stream(payload));
+		IngestionReport second = userIngestionService.ingestNdjson(stream(payload));
+
+		assertEquals(2, first.accepted());
+		assertEquals(0, first.duplicates());
+		assertEquals(3, first.rejected());
+		assertTrue(first.errors().stream().anyMatch(error -> error.startsWith("line 3: malformed JSON")));
+		assertEquals(0, second.accepted());
+		assertEquals(2, second.duplicates());
+		User jon = tourGuideService.getUser("jon");
+		assertEquals(jonId, jon.getUserId());
+		assertEquals(2, jon.getVisitedLocations().size());
+		assertEquals("2024-01-02T00:00:00Z", jon.getLastVisitedLocation().timeVisited.toInstant().toString());
+	}
+
+	@Test
+	public void ingestionIsIdempotentOnUserId() throws Exception {
+		UUID jonId = UUID.randomUUID();
+		userIngestionService.ingestNdjson(stream(user(jonId, "jon")));
+
+		IngestionReport report = userIngestionService.ingestNdjson(stream(String.join("\n",
+				user(jonId, "jonathan"),
+				user(UUID.randomUUID(), "jon"))));
+
+		assertEquals(0, report.accepted());
+		assertEquals(1, report.duplicates());
+		assertEquals(1, report.rejected());
+		assertTrue(report.errors().get(0).startsWith("line 2: userName jon"));
+		assertEquals(1, tourGuideService.getAllUsers().size());
+		assertNull(tourGuideService.getUser("jonathan"));
+	}
+
+	@Test
+	public void csvRowsOfAUserMakeItsHistory() throws Exception {
+		UUID jonId = UUID.randomUUID();
+		UUID janeId = UUID.randomUUID();
+		String payload = String.join("\n", UserIngestionService.CSV_HEADER,
+				jonId + ",jon,000,jon@tourGuide.com,10.5,20.5,2024-01-02T00:00:00Z",
+				jonId + ",jon,000,jon@tourGuide.com,11.5,21.5,2024-01-01T00:00:00Z",
+				janeId + ",jane,000,jane@tourGuide.com,,,",
+				UUID.randomUUID() + ",joe,000,joe@tourGuide.com,north,20.5,2024-01-01T00:00:00Z",
+				"too,few,fields");
+
+		IngestionReport report = userIngestionService.ingestCsv(stream(payload));
+
+		assertEquals(2, report.accepted());
+		assertEquals(2, report.rejected());
+		assertEquals(10.5, tourGuideService.getUser("jon").getLastVisitedLocation().location.latitude, 0);
+		assertTrue(tourGuideService.getUser("jane").getVisitedLocations().isEmpty());
+	}
+
+	@Test
+	@Tag("loadtest")
+	public void ingestsAHundredThousandUsers() throws Exception {
+		String payload = IntStream.range(0, 100_000)
+				.mapToObj(i -> user(UUID.randomUUID(), "user" + i))
+				.collect(Collectors.joining("\n"));
+
+		IngestionReport report = userIngestionService.ingestNdjson(stream(payload));
+
+		assertEquals(100_000, report.accepted());
+		assertEquals(100_000, tourGuideService.getAllUsers().size());
+		double usersPerSecond = report.accepted() * 1000.0 / Math.max(1, report.durationMillis());
+		assertTrue(usersPerSecond >= USERS_PER_SECOND, "ingested " + usersPerSecond + " users/s");
+	}
+
+	private static String user(UUID userId, String userName) {
+		return "{\"userId\":\"" + userId + "\",\"userName\":\"" + userName + "\",\"phoneNumber\":\"000\","
+				+ "\"emailAddress\":\"" + userName + "@tourGuide.com\",\"visitedLocations\":["
+				+ "{\"latitude\":33.8,\"longitude\":-117.9,\"timeVisited\":\"2024-01-02T00:00:00Z\"},"
+				+ "{\"latitude\":34.0,\"longitude\":-118.2,\"timeVisited\":\"2024-01-01T00:00:00Z\"}]}";
+	}
+
+	private static ByteArrayInputStream stream(String payload) {
+		return new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+	}
+}
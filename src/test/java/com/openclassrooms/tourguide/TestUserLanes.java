@@ -0,0 +1,65 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.service.UserLanes;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+public class TestUserLanes {
+
+	@Test
+	public void writesOfOneUserRunInSubmissionOrder() {
+		UserLanes userLanes = new UserLanes(4);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Integer> order = new ArrayList<>();
+
+		List<CompletableFuture<Void>> writes = IntStream.range(0, 10000)
+				.mapToObj(i -> userLanes.submit(user, () -> {
+					order.add(i);
+					return (Void) null;
+				}))
+				.toList();
+		writes.forEach(CompletableFuture::join);
+		userLanes.shutdown();
+
+		assertEquals(IntStream.range(0, 10000).boxed().toList(), order);
+	}
+
+	@Test
+	public void concurrentRewardsAreAddedOnce() {
+		UserLanes userLanes = new UserLanes(4);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attraction, new Date());
+
+		IntStream.range(0, 1000).parallel()
+				.forEach(i -> userLanes.run(user, () -> user.addUserReward(new UserReward(visitedLocation, attraction, i))));
+		userLanes.shutdown();
+
+		assertEquals(1, user.getUserRewards().size());
+	}
+
+	@Test
+	public void writeSubmittedFromItsOwnLaneRunsInline() {
+		UserLanes userLanes = new UserLanes(1);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		int result = userLanes.call(user, () -> userLanes.call(user, () -> 42));
+		userLanes.shutdown();
+
+		assertEquals(42, result);
+	}
+}
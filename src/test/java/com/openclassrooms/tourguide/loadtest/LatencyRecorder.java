@@ -0,0 +1,74 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects operation latencies from many threads and computes percentiles once the step is over.
+ */
+public class LatencyRecorder {
+	private final long[] samples;
+	private final AtomicInteger sampleCount = new AtomicInteger();
+	private final LongAdder errors = new LongAdder();
+
+	/**
+	 * @param capacity Maximum number of samples kept, later samples are dropped
+	 */
+	public LatencyRecorder(int capacity) {
+		this.samples = new long[capacity];
+	}
+
+	/**
+	 * Records a successful operation.
+	 *
+	 * @param startNanos Value of {@link System#nanoTime()} when the operation started
+	 */
+	public void recordSince(long startNanos) {
+		int index = sampleCount.getAndIncrement();
+		if (index < samples.length) {
+			samples[index] = System.nanoTime() - startNanos;
+		}
+	}
+
+	/**
+	 * Records a failed operation.
+	 */
+	public void recordError() {
+		errors.increment();
+	}
+
+	/**
+	 * @return Number of successful operations recorded
+	 */
+	public int getCount() {
+		return Math.min(sampleCount.get(), samples.length);
+	}
+
+	/**
+	 * @return Number of failed operations recorded
+	 */
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	/**
+	 * Computes latency percentiles, in milliseconds.
+	 *
+	 * @param percentiles The percentiles to compute, between 0 and 100
+	 * @return One latency per requested percentile
+	 */
+	public double[] percentilesMillis(double... percentiles) {
+		long[] sorted = Arrays.copyOf(samples, getCount());
+		Arrays.sort(sorted);
+		double[] result = new double[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			if (sorted.length > 0) {
+				int rank = (int) Math.ceil(percentiles[i] / 100 * sorted.length) - 1;
+				result[i] = sorted[Math.max(0, Math.min(rank, sorted.length - 1))] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+			}
+		}
+		return result;
+	}
+}
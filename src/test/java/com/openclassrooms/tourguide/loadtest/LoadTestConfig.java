@@ -0,0 +1,59 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import com.openclassrooms.tourguide.gateway.simulation.LatencyModel;
+
+/**
+ * Load test settings, read from system properties so that the harness can be driven from
+ * the command line, e.g. {@code mvn test -Ploadtest -Dloadtest.users=1000,10000}.
+ *
+ * @param userSteps Number of users of each step
+ * @param concurrencyLevels Number of concurrent clients for the interactive scenarios
+ * @param scenarios Scenarios to run: track, rewards, nearby and rest
+ * @param requestsPerStep Number of requests sent by each interactive step
+ * @param gpsLatency Latency of the simulated GPS service
+ * @param rewardsLatency Latency of the simulated RewardCentral
+ * @param pricerLatency Latency of the simulated TripPricer
+ * @param baseUrl URL of a running TourGuide instance for the REST scenario, empty to skip it
+ * @param outputDirectory Directory receiving the CSV and JSON reports
+ */
+public record LoadTestConfig(
+		List<Integer> userSteps,
+		List<Integer> concurrencyLevels,
+		List<String> scenarios,
+		int requestsPerStep,
+		LatencyModel gpsLatency,
+		LatencyModel rewardsLatency,
+		LatencyModel pricerLatency,
+		String baseUrl,
+		Path outputDirectory
+) {
+
+	public static LoadTestConfig fromSystemProperties() {
+		return new LoadTestConfig(
+				integers(System.getProperty("loadtest.users", "1000,10000,100000,1000000")),
+				integers(System.getProperty("loadtest.concurrency", "1,10,100")),
+				strings(System.getProperty("loadtest.scenarios", "track,rewards,nearby,rest")),
+				Integer.parseInt(System.getProperty("loadtest.requests", "10000")),
+				LatencyModel.parse(System.getProperty("loadtest.latency.gps", "uniform:10-20")),
+				LatencyModel.parse(System.getProperty("loadtest.latency.rewards", "uniform:5-10")),
+				LatencyModel.parse(System.getProperty("loadtest.latency.pricer", "uniform:20-30")),
+				System.getProperty("loadtest.baseUrl", ""),
+				Path.of(System.getProperty("loadtest.output", "target/loadtest")));
+	}
+
+	public boolean runs(String scenario) {
+		return scenarios.contains(scenario);
+	}
+
+	private static List<Integer> integers(String values) {
+		return strings(values).stream().map(Integer::valueOf).toList();
+	}
+
+	private static List<String> strings(String values) {
+		return Arrays.stream(values.split(",")).map(String::trim).filter(value -> !value.isEmpty()).toList();
+	}
+}
@@ -0,0 +1,298 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.gateway.simulation.FailureInjector;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedPricingGateway;
+import com.openclassrooms.tourguide.gateway.simulation.SimulatedRewardGateway;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.ingestion.UserIngestionService;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Drives TourGuide at increasing user counts and concurrency levels and records throughput,
+ * latency percentiles, heap and GC activity for each step.
+ *
+ * The in-process scenarios run against the simulated GPS, RewardCentral and TripPricer
+ * gateways so that results only depend on TourGuide itself and on the configured
+ * upstream latencies:
+ * <ul>
+ * <li>track: tracks every user asynchronously, as trackAllUsersLocationAsync does (rewards excluded)</li>
+ * <li>rewards: calculates the rewards of every user, each having visited an attraction</li>
+ * <li>nearby: concurrent getUserLocation + getNearByAttractions calls, as the controller does</li>
+ * <li>rest: concurrent calls to the REST endpoints of a running instance (loadtest.baseUrl), for
+ * the users loadtestUser0 to loadtestUser{n-1} imported into it before each step of n users</li>
+ * </ul>
+ * The REST steps run by increasing user count, since imported users stay on the instance: it
+ * holds its own internal users besides them, which the requests never target.
+ * Results are written as CSV and JSON to the output directory, ready to be charted.
+ */
+public class LoadTestHarness {
+	private static final String REMOTE_USER_PREFIX = "loadtestUser";
+	private static final List<String> ENDPOINTS = List.of("/getLocation", "/getNearbyAttractions", "/getRewards",
+			"/getTripDeals");
+
+	private final Logger logger = LoggerFactory.getLogger(LoadTestHarness.class);
+	private final LoadTestConfig config;
+	private final List<LoadTestResult> results = new ArrayList<>();
+
+	public LoadTestHarness(LoadTestConfig config) {
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws IOException {
+		new LoadTestHarness(LoadTestConfig.fromSystemProperties()).run();
+	}
+
+	/**
+	 * Runs every configured step and writes the reports.
+	 *
+	 * @return The measurements of every step
+	 */
+	public List<LoadTestResult> run() throws IOException {
+		for (int users : config.userSteps()) {
+			runServiceScenarios(users);
+		}
+		if (config.runs("rest") && !config.baseUrl().isBlank()) {
+			for (int users : config.userSteps().stream().sorted().toList()) {
+				populateRemote(users);
+				for (int concurrency : config.concurrencyLevels()) {
+					runRestScenario(users, concurrency);
+				}
+			}
+		}
+		writeReports();
+		return results;
+	}
+
+	private void runServiceScenarios(int users) {
+		int previousUserNumber = InternalTestHelper.getInternalUserNumber();
+		InternalTestHelper.setInternalUserNumber(users);
+		SimulatedGpsGateway gpsGateway = new SimulatedGpsGateway(config.gpsLatency(), FailureInjector.NONE);
+		RewardsService rewardsService = new RewardsService(gpsGateway,
+				new SimulatedRewardGateway(config.rewardsLatency(), FailureInjector.NONE));
+		TourGuideService tourGuideService = new TourGuideService(gpsGateway, rewardsService,
+				new SimulatedPricingGateway(config.pricerLatency(), FailureInjector.NONE));
+		tourGuideService.tracker.stopTracking();
+		InternalTestHelper.setInternalUserNumber(previousUserNumber);
+
+		try {
+			List<User> allUsers = tourGuideService.getAllUsers();
+			if (config.runs("track")) {
+				measureAsync("track", users, allUsers, tourGuideService::trackUserLocationAsync);
+				// rewards of the tracked locations are calculated in the background, not part of the step
+				tourGuideService.awaitPendingRewards();
+			}
+			if (config.runs("rewards")) {
+				Attraction attraction = gpsGateway.getAttractions().get(0);
+				allUsers.forEach(user -> user.addToVisitedLocations(
+						new VisitedLocation(user.getUserId(), attraction, new Date())));
+				measureAsync("rewards", users, allUsers, rewardsService::calculateRewardsAsync);
+			}
+			if (config.runs("nearby")) {
+				for (int concurrency : config.concurrencyLevels()) {
+					measureConcurrent("nearby", users, concurrency, i -> {
+						User user = allUsers.get(i % allUsers.size());
+						VisitedLocation visitedLocation = tourGuideService.getUserLocation(user);
+						tourGuideService.getNearByAttractions(visitedLocation, user);
+					});
+				}
+			}
+		} finally {
+			tourGuideService.shutdown();
+			rewardsService.shutdown();
+		}
+	}
+
+	private void runRestScenario(int users, int concurrency) {
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(concurrency);
+		HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+		try {
+			measureConcurrent("rest", users, concurrency, i -> {
+				String uri = config.baseUrl() + ENDPOINTS.get(i % ENDPOINTS.size()) + "?userName=" + REMOTE_USER_PREFIX
+						+ (i % users);
+				try {
+					HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+							HttpResponse.BodyHandlers.discarding());
+					if (response.statusCode() != 200) {
+						throw new IllegalStateException("HTTP " + response.statusCode() + " for " + uri);
+					}
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				}
+			});
+		} finally {
+			clientExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Imports the users of a REST step into the instance under test. Their ids derive from their
+	 * names, so that the users of a previous step are counted as duplicates rather than imported again.
+	 */
+	private void populateRemote(int users) throws IOException {
+		Path csv = Files.createTempFile("loadtest-users-", ".csv");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+				writer.write(UserIngestionService.CSV_HEADER);
+				for (int i = 0; i < users; i++) {
+					String userName = REMOTE_USER_PREFIX + i;
+					UUID userId = UUID.nameUUIDFromBytes(userName.getBytes(StandardCharsets.UTF_8));
+					writer.newLine();
+					writer.write(userId + "," + userName + ",000," + userName + "@tourGuide.com,"
+							+ (i % 180 - 90) + "," + (i % 360 - 180) + ",2024-01-01T00:00:00Z");
+				}
+			}
+			HttpResponse<String> response = HttpClient.newHttpClient().send(
+					HttpRequest.newBuilder(URI.create(config.baseUrl() + "/importUsers"))
+							.header("Content-Type", "text/csv")
+							.POST(HttpRequest.BodyPublishers.ofFile(csv))
+							.build(),
+					HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				throw new IllegalStateException("HTTP " + response.statusCode() + " importing " + users + " users");
+			}
+			logger.info("Remote population of " + users + " users: " + response.body());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} finally {
+			Files.deleteIfExists(csv);
+		}
+	}
+
+	/**
+	 * Starts one asynchronous operation per user and waits for all of them.
+	 */
+	private <T> void measureAsync(String scenario, int users, List<User> allUsers,
+			Function<User, CompletableFuture<T>> operation) {
+		LatencyRecorder recorder = new LatencyRecorder(allUsers.size());
+		StepSnapshot snapshot = StepSnapshot.take();
+		List<CompletableFuture<T>> futures = allUsers.stream()
+				.map(user -> {
+					long start = System.nanoTime();
+					return operation.apply(user).whenComplete((result, error) -> {
+						if (error == null) {
+							recorder.recordSince(start);
+						} else {
+							recorder.recordError();
+						}
+					});
+				})
+				.toList();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(error -> null).join();
+		record(scenario, users, 0, recorder, snapshot);
+	}
+
+	/**
+	 * Sends requestsPerStep operations from a fixed number of concurrent clients.
+	 */
+	private void measureConcurrent(String scenario, int users, int concurrency, IntConsumer operation) {
+		int requests = config.requestsPerStep();
+		LatencyRecorder recorder = new LatencyRecorder(requests);
+		AtomicInteger nextRequest = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+		StepSnapshot snapshot = StepSnapshot.take();
+		for (int client = 0; client < concurrency; client++) {
+			clients.execute(() -> {
+				for (int i = nextRequest.getAndIncrement(); i < requests; i = nextRequest.getAndIncrement()) {
+					long start = System.nanoTime();
+					try {
+						operation.accept(i);
+						recorder.recordSince(start);
+					} catch (RuntimeException e) {
+						recorder.recordError();
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		try {
+			clients.awaitTermination(1, TimeUnit.HOURS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		record(scenario, users, concurrency, recorder, snapshot);
+	}
+
+	private void record(String scenario, int users, int concurrency, LatencyRecorder recorder, StepSnapshot snapshot) {
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - snapshot.startNanos());
+		double[] percentiles = recorder.percentilesMillis(50, 95, 99);
+		StepSnapshot end = StepSnapshot.take();
+		LoadTestResult result = new LoadTestResult(scenario, users, concurrency, recorder.getCount(),
+				recorder.getErrors(), elapsedMillis, recorder.getCount() * 1000.0 / Math.max(1, elapsedMillis),
+				percentiles[0], percentiles[1], percentiles[2], end.heapUsedMb(), end.gcCount() - snapshot.gcCount(),
+				end.gcTimeMillis() - snapshot.gcTimeMillis());
+		logger.info(result.toString());
+		results.add(result);
+	}
+
+	private void writeReports() throws IOException {
+		Path directory = config.outputDirectory();
+		Files.createDirectories(directory);
+		String name = "loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+		List<String> csv = new ArrayList<>();
+		csv.add(LoadTestResult.CSV_HEADER);
+		results.forEach(result -> csv.add(result.toCsv()));
+		Files.write(directory.resolve(name + ".csv"), csv);
+
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+				.writeValue(directory.resolve(name + ".json").toFile(), results);
+		logger.info("Load test reports written to " + directory.toAbsolutePath());
+	}
+
+	/**
+	 * Time, heap and GC counters at the beginning or end of a step.
+	 */
+	private record StepSnapshot(long startNanos, long heapUsedMb, long gcCount, long gcTimeMillis) {
+
+		static StepSnapshot take() {
+			long gcCount = 0;
+			long gcTime = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				gcCount += Math.max(0, gc.getCollectionCount());
+				gcTime += Math.max(0, gc.getCollectionTime());
+			}
+			long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+			return new StepSnapshot(System.nanoTime(), heapUsed / (1024 * 1024), gcCount, gcTime);
+		}
+	}
+}
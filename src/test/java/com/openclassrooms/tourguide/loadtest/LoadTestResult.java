@@ -0,0 +1,32 @@
+package com.openclassrooms.tourguide.loadtest;
+
+/**
+ * Measurements of one load test step, one row of the throughput curves.
+ */
+public record LoadTestResult(
+		String scenario,
+		int users,
+		int concurrency,
+		long operations,
+		long errors,
+		long elapsedMillis,
+		double throughputPerSecond,
+		double p50Millis,
+		double p95Millis,
+		double p99Millis,
+		long heapUsedMb,
+		long gcCount,
+		long gcTimeMillis
+) {
+
+	static final String CSV_HEADER = "scenario,users,concurrency,operations,errors,elapsedMillis,throughputPerSecond,"
+			+ "p50Millis,p95Millis,p99Millis,heapUsedMb,gcCount,gcTimeMillis";
+
+	String toCsv() {
+		return String.join(",", scenario, String.valueOf(users), String.valueOf(concurrency),
+				String.valueOf(operations), String.valueOf(errors), String.valueOf(elapsedMillis),
+				String.format("%.1f", throughputPerSecond), String.format("%.3f", p50Millis),
+				String.format("%.3f", p95Millis), String.format("%.3f", p99Millis), String.valueOf(heapUsedMb),
+				String.valueOf(gcCount), String.valueOf(gcTimeMillis));
+	}
+}
@@ -0,0 +1,166 @@
+package com.openclassrooms.tourguide.loadtest;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.tourguide.TourguideApplication;
+
+/**
+ * Measures the time-to-first-request of TourGuide: the time from the launch of a new JVM
+ * to the first successful answer of /getLocation, the moment a scaled-out instance becomes
+ * useful. Each mode is started several times, one JVM after the other.
+ *
+ * The reflective mode starts the application from the test classpath. When the fast-start
+ * build is present ({@code mvn package -Pfaststart}), its jar is also started with AOT, and
+ * with AOT and the AppCDS archive of the training run. Settings are read from system properties:
+ * <ul>
+ * <li>startup.runs: cold starts per mode, 3 by default</li>
+ * <li>startup.jar: jar of the fast-start build, target/tourguide-0.0.1-SNAPSHOT.jar by default</li>
+ * <li>startup.archive: AppCDS archive of the fast-start build, target/tourguide.jsa by default</li>
+ * <li>startup.timeout: longest wait for the first request, in seconds, 120 by default</li>
+ * </ul>
+ */
+public class StartupBenchmark {
+	private static final String FIRST_REQUEST = "/getLocation?userName=internalUser0";
+
+	private final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class);
+	private final int runs;
+	private final Path jar;
+	private final Path archive;
+	private final Duration timeout;
+	private final Path outputDirectory;
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	public StartupBenchmark(int runs, Path jar, Path archive, Duration timeout, Path outputDirectory) {
+		this.runs = runs;
+		this.jar = jar;
+		this.archive = archive;
+		this.timeout = timeout;
+		this.outputDirectory = outputDirectory;
+	}
+
+	public static StartupBenchmark fromSystemProperties() {
+		return new StartupBenchmark(
+				Integer.parseInt(System.getProperty("startup.runs", "3")),
+				Path.of(System.getProperty("startup.jar", "target/tourguide-0.0.1-SNAPSHOT.jar")),
+				Path.of(System.getProperty("startup.archive", "target/tourguide.jsa")),
+				Duration.ofSeconds(Long.parseLong(System.getProperty("startup.timeout", "120"))),
+				Path.of(System.getProperty("loadtest.output", "target/loadtest")));
+	}
+
+	public static void main(String[] args) throws Exception {
+		fromSystemProperties().run();
+	}
+
+	/**
+	 * Starts every available mode and writes the report.
+	 *
+	 * @return The time-to-first-request of every mode
+	 */
+	public List<StartupResult> run() throws IOException, InterruptedException {
+		List<StartupResult> results = new ArrayList<>();
+		for (Map.Entry<String, List<String>> mode : modes().entrySet()) {
+			results.add(measure(mode.getKey(), mode.getValue()));
+		}
+		writeReport(results);
+		return results;
+	}
+
+	private Map<String, List<String>> modes() {
+		Map<String, List<String>> modes = new LinkedHashMap<>();
+		modes.put("reflective", List.of("-cp", System.getProperty("java.class.path"),
+				TourguideApplication.class.getName()));
+		if (Files.exists(jar) && Files.exists(archive)) {
+			modes.put("aot", List.of("-Dspring.aot.enabled=true", "-jar", jar.toString()));
+			modes.put("aot+cds", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true", "-jar",
+					jar.toString()));
+		} else {
+			logger.info("No fast-start build at " + jar + ", run mvn package -Pfaststart to benchmark it");
+		}
+		return modes;
+	}
+
+	private StartupResult measure(String mode, List<String> launch) throws IOException, InterruptedException {
+		long[] millis = new long[runs];
+		for (int run = 0; run < runs; run++) {
+			millis[run] = timeToFirstRequest(mode, launch);
+			logger.info(mode + " run " + (run + 1) + ": first request answered after " + millis[run] + " ms");
+		}
+		Arrays.sort(millis);
+		StartupResult result = new StartupResult(mode, runs, millis[0], millis[runs / 2], millis[runs - 1]);
+		logger.info(result.toString());
+		return result;
+	}
+
+	private long timeToFirstRequest(String mode, List<String> launch) throws IOException, InterruptedException {
+		int port = freePort();
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(launch);
+		command.add("--server.port=" + port);
+		command.add("--logging.level.com.openclassrooms.tourguide=INFO");
+		Files.createDirectories(outputDirectory);
+		Path log = outputDirectory.resolve("startup-" + mode.replace('+', '-') + ".log");
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST))
+				.timeout(Duration.ofSeconds(10)).GET().build();
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+		try {
+			while (System.nanoTime() - start < timeout.toNanos()) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException(mode + " exited with " + process.exitValue() + ", see " + log);
+				}
+				try {
+					if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					}
+				} catch (ConnectException e) {
+					// not listening yet
+				}
+				Thread.sleep(10);
+			}
+			throw new IllegalStateException(mode + " did not answer within " + timeout + ", see " + log);
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private void writeReport(List<StartupResult> results) throws IOException {
+		Files.createDirectories(outputDirectory);
+		String name = "startup-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		List<String> csv = new ArrayList<>();
+		csv.add(StartupResult.CSV_HEADER);
+		results.forEach(result -> csv.add(result.toCsv()));
+		Files.write(outputDirectory.resolve(name + ".csv"), csv);
+		logger.info("Startup report written to " + outputDirectory.toAbsolutePath());
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.loadtest;
+
+/**
+ * Time-to-first-request of one startup mode, over several cold starts.
+ *
+ * @param mode Name of the startup mode
+ * @param runs Number of cold starts
+ * @param minMillis Fastest time from process launch to the first successful request
+ * @param medianMillis Median time to the first successful request
+ * @param maxMillis Slowest time to the first successful request
+ */
+public record StartupResult(
+		String mode,
+		int runs,
+		long minMillis,
+		long medianMillis,
+		long maxMillis
+) {
+
+	static final String CSV_HEADER = "mode,runs,minMillis,medianMillis,maxMillis";
+
+	String toCsv() {
+		return String.join(",", mode, String.valueOf(runs), String.valueOf(minMillis), String.valueOf(medianMillis),
+				String.valueOf(maxMillis));
+	}
+}